@@ -0,0 +1,64 @@
+package main.java.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import main.java.board.Box;
+import main.java.board.BoxList;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Deterministic boards shared by the benchmarks. Every box gets up to
+ * CONNECTIONS_PER_BOX links to random earlier boxes so line rebuilds and
+ * serialization see a realistic graph.
+ */
+final class BoardFixtures {
+    static final int CONNECTIONS_PER_BOX = 2;
+    private static final long SEED = 42L;
+
+    private BoardFixtures() {
+    }
+
+    static BoxList boxList(int size) {
+        BoxList boxList = new BoxList();
+        for (Box box : boxes(size)) {
+            boxList.addNode(box);
+        }
+        return boxList;
+    }
+
+    static List<Box> boxes(int size) {
+        Random random = new Random(SEED);
+        List<Box> boxes = new ArrayList<>(size);
+        for (int id = 0; id < size; id++) {
+            Box box = new Box(random.nextInt(2000), random.nextInt(1500), "Box " + id, "Content of box " + id, id);
+            for (int c = 0; c < CONNECTIONS_PER_BOX && id > 0; c++) {
+                box.addConnection(random.nextInt(id));
+            }
+            boxes.add(box);
+        }
+        return boxes;
+    }
+
+    static JSONArray boxesJson(int size) {
+        return boxList(size).toJSONArray();
+    }
+
+    static JSONObject boardJson(int size) {
+        JSONObject board = new JSONObject();
+        board.put("boxes", boxesJson(size));
+        board.put("lastUpdated", System.currentTimeMillis());
+        return board;
+    }
+
+    /**
+     * The board and server code log every step to System.out. Benchmarks
+     * silence it so the numbers measure the code path, not the console.
+     */
+    static void silenceStdout() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+}
@@ -0,0 +1,163 @@
+package main.java.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import main.java.board.Box;
+import main.java.database.BoxConnectionDAO;
+import main.java.database.BoxDAO;
+import main.java.database.ConnectionRow;
+import main.java.database.DatabaseConnectionManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading one board from PostgreSQL when totalBoxes boxes (10M by default)
+ * are spread over boards of boxesPerBoard, with plain tables (partitions=0)
+ * or boxes and box_connections hash-partitioned by board_id.
+ *
+ * Needs the database from database.properties, or -Ddb.url/-Ddb.username/
+ * -Ddb.password via -jvmArgsAppend. Each partition count gets its own schema
+ * (bench_boards_p0, bench_boards_p16, ...), migrated by the application's
+ * SchemaMigrator and seeded on the first run only: seeding 10M boxes takes
+ * several minutes, later runs reuse it. Drop the schema to reseed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class BoardLoadBenchmark {
+    private static final String BENCH_USER = "bench@thinklink.com";
+
+    @Param({ "0", "16" })
+    public int partitions;
+
+    @Param({ "10000000" })
+    public int totalBoxes;
+
+    @Param({ "500" })
+    public int boxesPerBoard;
+
+    private int boards;
+    private BoxDAO boxDAO;
+    private BoxConnectionDAO connectionDAO;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        boards = Math.max(1, totalBoxes / boxesPerBoard);
+        String schema = "bench_boards_p" + partitions;
+
+        Properties props = new Properties();
+        try (InputStream input = getClass().getClassLoader().getResourceAsStream("database.properties")) {
+            if (input != null) {
+                props.load(input);
+            }
+        }
+        String url = System.getProperty("db.url", props.getProperty("db.url"));
+        String username = System.getProperty("db.username", props.getProperty("db.username"));
+        String password = System.getProperty("db.password", props.getProperty("db.password"));
+        try (Connection conn = DriverManager.getConnection(url, username, password);
+                Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE SCHEMA IF NOT EXISTS " + schema);
+        }
+
+        // Each trial runs in a fresh fork, so the connection manager is
+        // created here with this schema and partition count
+        System.setProperty("db.url", url + (url.contains("?") ? "&" : "?") + "currentSchema=" + schema);
+        System.setProperty("db.partitions", Integer.toString(partitions));
+        BoardFixtures.silenceStdout();
+        DatabaseConnectionManager manager = DatabaseConnectionManager.getInstance();
+        manager.initializeDatabase();
+        seed(manager);
+
+        boxDAO = new BoxDAO();
+        connectionDAO = new BoxConnectionDAO();
+    }
+
+    // Boards bench-0..bench-(boards-1), each box linked to the two before it
+    // on its board (BoardFixtures.CONNECTIONS_PER_BOX), all in one transaction
+    private void seed(DatabaseConnectionManager manager) throws SQLException {
+        try (Connection conn = manager.getConnection();
+                Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SELECT count(*) FROM boards")) {
+                rs.next();
+                if (rs.getInt(1) >= boards) {
+                    return;
+                }
+            }
+
+            conn.setAutoCommit(false);
+            try {
+                // Seeding is not a change to sync, so skip the version triggers
+                stmt.execute("ALTER TABLE boxes DISABLE TRIGGER USER");
+                stmt.execute("ALTER TABLE box_connections DISABLE TRIGGER USER");
+                stmt.execute("INSERT INTO users (user_email) VALUES ('" + BENCH_USER + "') ON CONFLICT DO NOTHING");
+                stmt.execute("INSERT INTO boards (board_id, board_name, creator_email)"
+                        + " SELECT 'bench-' || g, 'Benchmark board ' || g, '" + BENCH_USER + "'"
+                        + " FROM generate_series(0, " + (boards - 1) + ") g");
+                stmt.execute("INSERT INTO boxes (board_id, title, content, position_x, position_y)"
+                        + " SELECT 'bench-' || (g % " + boards + "), 'Box ' || g, 'Content of box ' || g,"
+                        + " (g * 37) % 2000, (g * 53) % 1500"
+                        + " FROM generate_series(0, " + (totalBoxes - 1) + ") g");
+                stmt.execute("""
+                            INSERT INTO box_connections (board_id, source_box_id, target_box_id)
+                            SELECT x.board_id, x.box_id, v.target_box_id
+                            FROM (SELECT board_id, box_id, lag(box_id, 1) OVER w AS t1, lag(box_id, 2) OVER w AS t2
+                                  FROM boxes WINDOW w AS (PARTITION BY board_id ORDER BY box_id)) x
+                            CROSS JOIN LATERAL (VALUES (x.t1), (x.t2)) AS v(target_box_id)
+                            WHERE v.target_box_id IS NOT NULL
+                        """);
+                stmt.execute("ALTER TABLE boxes ENABLE TRIGGER USER");
+                stmt.execute("ALTER TABLE box_connections ENABLE TRIGGER USER");
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            stmt.execute("VACUUM ANALYZE boxes");
+            stmt.execute("VACUUM ANALYZE box_connections");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DatabaseConnectionManager.getInstance().shutdown();
+    }
+
+    private String randomBoard() {
+        return "bench-" + ThreadLocalRandom.current().nextInt(boards);
+    }
+
+    @Benchmark
+    public List<Box> loadBoard() {
+        return boxDAO.getBoxesWithConnectionsForBoard(randomBoard());
+    }
+
+    @Benchmark
+    public List<ConnectionRow> loadConnections() {
+        return connectionDAO.getConnectionsForBoard(randomBoard());
+    }
+}
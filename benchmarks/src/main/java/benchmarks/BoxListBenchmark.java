@@ -0,0 +1,62 @@
+package main.java.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import main.java.board.Box;
+import main.java.board.BoxList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * BoxList add, lookup and delete at board sizes from 1k to 100k boxes.
+ * Each operation leaves the list at its original size so iterations are
+ * comparable.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class BoxListBenchmark {
+    @Param({ "1000", "10000", "100000" })
+    public int size;
+
+    private BoxList boxList;
+    private Box extraBox;
+
+    @Setup
+    public void setUp() {
+        boxList = BoardFixtures.boxList(size);
+        extraBox = new Box(10, 10, "Extra", "", size);
+    }
+
+    @Benchmark
+    public Box lookupById() {
+        return boxList.getBoxById(ThreadLocalRandom.current().nextInt(size));
+    }
+
+    @Benchmark
+    public int addThenDelete() {
+        boxList.addNode(extraBox);
+        boxList.deleteNodeById(extraBox.getId());
+        return boxList.getSize();
+    }
+
+    @Benchmark
+    public int deleteThenReAdd() {
+        Box box = boxList.getBoxById(ThreadLocalRandom.current().nextInt(size));
+        boxList.deleteNodeById(box.getId());
+        boxList.addNode(box);
+        return boxList.getSize();
+    }
+}
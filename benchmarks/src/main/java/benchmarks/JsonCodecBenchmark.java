@@ -0,0 +1,72 @@
+package main.java.benchmarks;
+
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import main.java.board.BoardPanel;
+import main.java.board.BoxList;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Board serialization: BoxList.toJSONArray (what clients save and the server
+ * persists) and BoardPanel.loadBoardFromJSON (what clients run on
+ * initial_board_state), plus the text round trip that sits on the wire.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class JsonCodecBenchmark {
+    @Param({ "100", "1000", "5000" })
+    public int size;
+
+    private BoxList boxList;
+    private JSONObject board;
+    private String boardText;
+    private BoardPanel boardPanel;
+
+    @Setup
+    public void setUp() throws Exception {
+        System.setProperty("user.home", Files.createTempDirectory("thinklink-bench").toString());
+        BoardFixtures.silenceStdout();
+        boxList = BoardFixtures.boxList(size);
+        board = BoardFixtures.boardJson(size);
+        boardText = board.toString();
+        // A detached panel: no server connection, no dashboard
+        boardPanel = new BoardPanel(null);
+    }
+
+    @Benchmark
+    public JSONArray toJSONArray() {
+        return boxList.toJSONArray();
+    }
+
+    @Benchmark
+    public String toJSONText() {
+        return boxList.toJSONArray().toString();
+    }
+
+    @Benchmark
+    public JSONObject parseBoardText() {
+        return new JSONObject(boardText);
+    }
+
+    @Benchmark
+    public BoardPanel loadBoardFromJSON() {
+        boardPanel.loadBoardFromJSON(board, "bench", true);
+        return boardPanel;
+    }
+}
@@ -0,0 +1,60 @@
+package main.java.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import main.java.board.Box;
+import main.java.board.BoxList;
+import main.java.board.LineList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rebuilding every Line from box connections, as BoardPanel does after
+ * each remote change (same traversal as rebuildLinesFromBoxConnections,
+ * minus its logging).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class LineListBenchmark {
+    @Param({ "100", "1000", "5000" })
+    public int size;
+
+    private BoxList boxList;
+    private LineList lineList;
+
+    @Setup
+    public void setUp() {
+        boxList = BoardFixtures.boxList(size);
+        lineList = new LineList();
+    }
+
+    @Benchmark
+    public int rebuild() {
+        lineList.clear();
+        Box current = boxList.getFirstNode();
+        while (current != null) {
+            List<Integer> connectedIds = current.getConnectedBoxIds();
+            for (Integer targetId : connectedIds) {
+                Box target = boxList.getBoxById(targetId);
+                if (target != null) {
+                    lineList.addLine(current, target);
+                }
+            }
+            current = current.getNext();
+        }
+        return lineList.getLines().size();
+    }
+}
@@ -0,0 +1,214 @@
+package main.java.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import main.java.metrics.ServerMetrics;
+import main.java.server.ClientHandler;
+import main.java.server.ThinkLinkServer;
+import main.java.utils.SharedState;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Messages from one client through the real ClientHandler.run loop: parse,
+ * dispatch, and the broadcast to the other clients on the board, including
+ * the PrintWriter serialization of every send. Sockets are in memory and the
+ * peers' output is discarded, so no network time is measured.
+ *
+ * Each invocation is one session (login, join_board, MESSAGES messages,
+ * disconnect), reported per message. The join's initial_board_state and the
+ * disconnect notice are part of that cost. update_box also applies the change
+ * to SharedState, which rewrites the shared board file under a scratch
+ * user.home; SharedStateBenchmark measures that write on its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class MessageHandlingBenchmark {
+    static final int MESSAGES = 100;
+    private static final String BOARD_ID = "shared-global-board";
+    private static final int BOARD_SIZE = 100;
+
+    @Param({ "1", "10" })
+    public int peers;
+
+    private ThinkLinkServer server;
+    private final List<Thread> peerThreads = new ArrayList<>();
+    private final CountDownLatch peersReleased = new CountDownLatch(1);
+    private byte[] relaySession;
+    private byte[] updateBoxSession;
+    private String updateBoxLine;
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        // ClientHandler and SharedState resolve ~/.thinklink when they load
+        System.setProperty("user.home", Files.createTempDirectory("thinklink-bench").toString());
+        BoardFixtures.silenceStdout();
+        SharedState.saveSharedBoard(BoardFixtures.boxesJson(BOARD_SIZE));
+        server = new ThinkLinkServer();
+
+        for (int i = 0; i < peers; i++) {
+            String email = "peer" + i + "@thinklink.local";
+            // The peer joins, then blocks on its socket until tearDown
+            InputStream input = new SequenceInputStream(new ByteArrayInputStream(joinLines(email)), new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    try {
+                        peersReleased.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return -1;
+                }
+            });
+            Thread thread = new Thread(new ClientHandler(new MemorySocket(input), server), "bench-" + email);
+            thread.setDaemon(true);
+            thread.start();
+            peerThreads.add(thread);
+        }
+        for (int i = 0; i < peers; i++) {
+            String email = "peer" + i + "@thinklink.local";
+            while (ThinkLinkServer.getClientHandler(email) == null
+                    || ThinkLinkServer.getClientHandler(email).getBoardId() == null) {
+                Thread.sleep(10);
+            }
+        }
+
+        String sender = "bench@thinklink.local";
+        StringBuilder relay = new StringBuilder(new String(joinLines(sender), StandardCharsets.UTF_8));
+        StringBuilder updates = new StringBuilder(relay);
+        for (int i = 0; i < MESSAGES; i++) {
+            // goal_update has no handler of its own, so it takes the generic relay
+            JSONObject goal = new JSONObject();
+            goal.put("type", "goal_update");
+            goal.put("boardId", BOARD_ID);
+            goal.put("userEmail", sender);
+            goal.put("action", "toggle");
+            goal.put("goalId", i);
+            goal.put("text", "Goal " + i);
+            goal.put("completed", i % 2 == 0);
+            relay.append(goal).append('\n');
+
+            JSONObject update = new JSONObject();
+            update.put("type", "update_box");
+            update.put("boardId", BOARD_ID);
+            update.put("userEmail", sender);
+            update.put("boxId", i % BOARD_SIZE);
+            update.put("title", "Quarterly planning");
+            update.put("content", "Collect the open questions from the last review and assign owners.");
+            update.put("x", 640 + i);
+            update.put("y", 480);
+            update.put("connections", new JSONArray().put(12).put(57).put(301));
+            update.put("traceId", "5f2c9e01a3b4d6e7");
+            update.put("clientSentMicros", 1_700_000_000_000_000L);
+            updates.append(update).append('\n');
+            updateBoxLine = update.toString();
+        }
+        relaySession = relay.toString().getBytes(StandardCharsets.UTF_8);
+        updateBoxSession = updates.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        peersReleased.countDown();
+        for (Thread thread : peerThreads) {
+            thread.join(5000);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void relayGoalUpdate() {
+        new ClientHandler(new MemorySocket(new ByteArrayInputStream(relaySession)), server).run();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void updateBox() {
+        new ClientHandler(new MemorySocket(new ByteArrayInputStream(updateBoxSession)), server).run();
+    }
+
+    /**
+     * Baseline: only the parse and type lookup at the top of the run loop
+     */
+    @Benchmark
+    public String parseUpdateBoxOnly() {
+        return new JSONObject(updateBoxLine).optString("type", "unknown");
+    }
+
+    /**
+     * Baseline: the type scan every sendMessage does for its metrics label
+     */
+    @Benchmark
+    public String scanTypeOnly() {
+        return ServerMetrics.messageType(updateBoxLine);
+    }
+
+    private static byte[] joinLines(String email) {
+        JSONObject login = new JSONObject();
+        login.put("type", "login");
+        login.put("email", email);
+        JSONObject join = new JSONObject();
+        join.put("type", "join_board");
+        join.put("boardId", BOARD_ID);
+        return (login + "\n" + join + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A socket that reads a scripted session and discards what is written
+     */
+    private static final class MemorySocket extends Socket {
+        private final InputStream input;
+        private volatile boolean closed;
+
+        MemorySocket(InputStream input) {
+            this.input = input;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return input;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return OutputStream.nullOutputStream();
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+        }
+    }
+}
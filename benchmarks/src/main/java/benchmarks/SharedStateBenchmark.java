@@ -0,0 +1,64 @@
+package main.java.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import main.java.utils.SharedState;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SharedState.updateServerBoardState, the server's per-update_box write path,
+ * at several board sizes. SharedState resolves its file from user.home once,
+ * so setup points user.home at a scratch directory before the class loads
+ * and the real ~/.thinklink board is never touched.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SharedStateBenchmark {
+    private static final String BOARD_ID = "shared-global-board";
+
+    @Param({ "100", "1000", "10000" })
+    public int size;
+
+    @Setup
+    public void setUp() throws IOException {
+        System.setProperty("user.home", Files.createTempDirectory("thinklink-bench").toString());
+        BoardFixtures.silenceStdout();
+        SharedState.saveSharedBoard(BoardFixtures.boxesJson(size));
+    }
+
+    @Benchmark
+    public void updateExistingBox() {
+        int id = ThreadLocalRandom.current().nextInt(size);
+        JSONObject box = new JSONObject();
+        box.put("id", id);
+        box.put("title", "Box " + id);
+        box.put("content", "Content of box " + id);
+        box.put("x", ThreadLocalRandom.current().nextInt(2000));
+        box.put("y", ThreadLocalRandom.current().nextInt(1500));
+        box.put("connections", new JSONArray());
+        SharedState.updateServerBoardState(BOARD_ID, box);
+    }
+
+    @Benchmark
+    public JSONObject loadBoard() {
+        return SharedState.loadSharedBoard();
+    }
+}
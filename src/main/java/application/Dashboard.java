@@ -10,12 +10,17 @@ import main.java.notes.NotePanel;
 import main.java.checklist.ChecklistPanel;
 import main.java.calendar.CalendarPanel;
 import main.java.board.SharedBoardPanel;
+import main.java.database.DatabaseService;
+import main.java.database.SearchResult;
+import java.sql.SQLException;
 import org.json.*;
 
 public class Dashboard extends JFrame {
     private User user;
     private JTabbedPane tabbedPane;
     private ServerConnection serverConnection;
+    // Created on the first search
+    private DatabaseService databaseService;
 
     public Dashboard(User user) {
         this(user, null);
@@ -83,6 +88,17 @@ public class Dashboard extends JFrame {
         appTitle.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         headerPanel.add(appTitle, BorderLayout.WEST);
 
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JTextField searchField = new JTextField(22);
+        searchField.setToolTipText("Search notes and board boxes (\"phrase\", -exclude, or)");
+        JButton searchButton = new JButton("🔍 Search");
+        ActionListener runSearch = e -> openSearch(searchField.getText());
+        searchField.addActionListener(runSearch);
+        searchButton.addActionListener(runSearch);
+        searchPanel.add(searchField);
+        searchPanel.add(searchButton);
+        headerPanel.add(searchPanel, BorderLayout.EAST);
+
         headerPanel.setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, Color.LIGHT_GRAY));
         add(headerPanel, BorderLayout.NORTH);
 
@@ -95,6 +111,45 @@ public class Dashboard extends JFrame {
         });
     }
 
+    /**
+     * Opens a results window for a full-text search over notes and boxes
+     */
+    private void openSearch(String query) {
+        if (query == null || query.isBlank()) {
+            return;
+        }
+        if (databaseService == null) {
+            DatabaseService service = new DatabaseService();
+            try {
+                service.initializeDatabase();
+            } catch (SQLException e) {
+                JOptionPane.showMessageDialog(this,
+                        "Search needs the database, which is not available right now.",
+                        "Search Unavailable",
+                        JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            databaseService = service;
+        }
+        new SearchDialog(this, user, databaseService, query.trim(), this::openSearchResult).setVisible(true);
+    }
+
+    private void openSearchResult(SearchResult result) {
+        for (int i = 0; i < tabbedPane.getTabCount(); i++) {
+            Component comp = tabbedPane.getComponentAt(i);
+            if (result.isNote() && comp instanceof NotePanel) {
+                tabbedPane.setSelectedIndex(i);
+                ((NotePanel) comp).showNote(result.title());
+                return;
+            }
+            if (!result.isNote() && comp instanceof BoardPanel
+                    && result.boardId().equals(((BoardPanel) comp).getBoardId())) {
+                tabbedPane.setSelectedIndex(i);
+                return;
+            }
+        }
+    }
+
     /**
      * Simplified shutdown process that won't hang
      */
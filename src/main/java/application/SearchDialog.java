@@ -0,0 +1,99 @@
+package main.java.application;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.function.Consumer;
+import main.java.auth.User;
+import main.java.database.DatabaseService;
+import main.java.database.SearchDAO;
+import main.java.database.SearchResult;
+import main.java.utils.LazyPageLoader;
+
+/**
+ * Results of a full-text search across the user's notes and board boxes,
+ * fetched a page at a time as the list scrolls
+ */
+public class SearchDialog extends JDialog {
+    private static final int PAGE_SIZE = 25;
+
+    private final DefaultListModel<SearchResult> resultModel = new DefaultListModel<>();
+    private final JLabel statusLabel = new JLabel(" ");
+    private final LazyPageLoader<SearchResult> loader;
+
+    public SearchDialog(Frame owner, User user, DatabaseService databaseService, String query,
+            Consumer<SearchResult> onOpen) {
+        super(owner, "Search: " + query, false);
+        setLayout(new BorderLayout(5, 5));
+
+        JList<SearchResult> resultList = new JList<>(resultModel);
+        resultList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        resultList.setCellRenderer(new SearchResultRenderer());
+        resultList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2 && resultList.getSelectedValue() != null) {
+                    onOpen.accept(resultList.getSelectedValue());
+                }
+            }
+        });
+
+        JScrollPane scrollPane = new JScrollPane(resultList);
+        scrollPane.setPreferredSize(new Dimension(520, 400));
+        add(scrollPane, BorderLayout.CENTER);
+
+        JPanel bottomPanel = new JPanel(new BorderLayout());
+        bottomPanel.setBorder(BorderFactory.createEmptyBorder(0, 5, 5, 5));
+        bottomPanel.add(statusLabel, BorderLayout.WEST);
+        JButton closeButton = new JButton("Close");
+        closeButton.addActionListener(e -> dispose());
+        bottomPanel.add(closeButton, BorderLayout.EAST);
+        add(bottomPanel, BorderLayout.SOUTH);
+
+        loader = new LazyPageLoader<>(scrollPane, PAGE_SIZE,
+                (after, limit) -> databaseService.search(user.getUserEmail(), query, after, limit),
+                rows -> {
+                    for (SearchResult row : rows) {
+                        resultModel.addElement(row);
+                    }
+                    updateStatus();
+                });
+        statusLabel.setText("Searching...");
+        loader.loadMore();
+
+        pack();
+        setLocationRelativeTo(owner);
+    }
+
+    private void updateStatus() {
+        statusLabel.setText(resultModel.size() + " result(s)" + (loader.isExhausted() ? "" : ", scroll for more")
+                + " - double-click to open");
+    }
+
+    private static String toHtml(String text) {
+        String escaped = text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                .replace("\n", " ");
+        return escaped.replace(SearchDAO.MATCH_START, "<b>").replace(SearchDAO.MATCH_END, "</b>");
+    }
+
+    private static class SearchResultRenderer extends DefaultListCellRenderer {
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value,
+                int index, boolean isSelected, boolean cellHasFocus) {
+
+            JLabel label = (JLabel) super.getListCellRendererComponent(
+                    list, value, index, isSelected, cellHasFocus);
+
+            if (value instanceof SearchResult) {
+                SearchResult result = (SearchResult) value;
+                String where = result.isNote() ? "📝 Note" : "🎯 Box on " + result.boardId();
+                label.setText("<html><b>" + toHtml(result.title()) + "</b> <i>(" + toHtml(where) + ")</i><br>"
+                        + toHtml(result.snippet()) + "</html>");
+                label.setBorder(BorderFactory.createEmptyBorder(4, 4, 4, 4));
+            }
+
+            return label;
+        }
+    }
+}
@@ -4,6 +4,8 @@ import javax.swing.*;
 import main.java.auth.LoginScreen;
 import main.java.auth.LoginScreen.DashboardCreatedCallback;
 import main.java.network.ServerConnection;
+import main.java.metrics.MetricsHttpServer;
+import main.java.metrics.MetricsRegistry;
 import org.json.*;
 
 /**
@@ -21,6 +23,17 @@ public class ThinkLink {
             e.printStackTrace();
         }
 
+        // Client-side trace histograms are only exposed when a port is given,
+        // since several clients on one machine would otherwise clash
+        Integer metricsPort = Integer.getInteger("thinklink.metrics.port");
+        if (metricsPort != null) {
+            try {
+                new MetricsHttpServer(MetricsRegistry.getInstance(), metricsPort).start();
+            } catch (java.io.IOException e) {
+                System.err.println("Could not start client metrics endpoint: " + e.getMessage());
+            }
+        }
+
         // Create server connection with message handler
         serverConnection = new ServerConnection(message -> {
             handleServerMessage(message);
@@ -13,6 +13,7 @@ import org.json.*;
 import main.java.utils.SharedState;
 import main.java.application.Dashboard;
 import main.java.utils.DatabaseSaveAndLoad;
+import main.java.metrics.OperationTrace;
 
 public class BoardPanel extends JPanel implements MouseListener, MouseMotionListener {
 	private User user;
@@ -88,7 +89,10 @@ public class BoardPanel extends JPanel implements MouseListener, MouseMotionList
 	}
 
 	private void sendBoxUpdate(Box boxToUpdate, String loggerUserEmail, String reason) {
-		if (boxToUpdate == null || serverConnection == null || boardId == null)
+		if (boxToUpdate == null)
+			return;
+		saveAndLoad.queueBoxUpdate(boxToUpdate, boardId);
+		if (serverConnection == null || boardId == null)
 			return;
 		JSONObject message = new JSONObject();
 		message.put("type", "update_box");
@@ -106,6 +110,7 @@ public class BoardPanel extends JPanel implements MouseListener, MouseMotionList
 			}
 		}
 		message.put("connections", connectionsArray);
+		OperationTrace.start(message);
 		serverConnection.sendMessage(message);
 		System.out.println(
 				"BoardPanel (" + loggerUserEmail + ") SEND_BOX_UPDATE (" + reason + "): Box ID " + boxToUpdate.getId());
@@ -119,6 +124,8 @@ public class BoardPanel extends JPanel implements MouseListener, MouseMotionList
 
 			if (sourceBox != null && targetBox != null) {
 				boolean added = sourceBox.addConnection(targetBoxId);
+				if (added)
+					saveAndLoad.queueBoxUpdate(sourceBox, boardId);
 				rebuildLinesFromBoxConnections(loggerUserEmail + "_LOCAL_AFTER_BOX_UPDATE");
 				repaint();
 			}
@@ -135,6 +142,7 @@ public class BoardPanel extends JPanel implements MouseListener, MouseMotionList
 			message.put("sourceBoxId", sourceBoxId);
 			message.put("targetBoxId", targetBoxId);
 
+			OperationTrace.start(message);
 			serverConnection.sendMessage(message);
 		} catch (Exception e) {
 			System.err.println("Error in sendConnectionUpdate: " + e.getMessage());
@@ -594,6 +602,7 @@ public class BoardPanel extends JPanel implements MouseListener, MouseMotionList
 			request.put("content", content);
 			request.put("x", x);
 			request.put("y", y);
+			OperationTrace.start(request);
 			actionServerConnection.sendMessage(request);
 			System.out.println(
 					"BoardPanel (" + loggerUserEmail + ") ADD_BOX: Sent client_request_add_box for '" + title + "'");
@@ -642,6 +651,8 @@ public class BoardPanel extends JPanel implements MouseListener, MouseMotionList
 				Box sourceBox = boxList.getBoxById(sourceId);
 				if (sourceBox != null) {
 					sourceBox.removeConnection(targetId);
+					if (isOwnChange(message))
+						saveAndLoad.queueBoxUpdate(sourceBox, boardId);
 					rebuildLinesFromBoxConnections(userEmailForLog);
 					repaint();
 				}
@@ -655,6 +666,7 @@ public class BoardPanel extends JPanel implements MouseListener, MouseMotionList
 			rebuildLinesFromBoxConnections(userEmailForLog + "/after_server_" + type);
 		}
 		repaint();
+		OperationTrace.markApplied(message);
 	}
 
 	private void handleRemoteAddBox(JSONObject message) {
@@ -680,9 +692,18 @@ public class BoardPanel extends JPanel implements MouseListener, MouseMotionList
 			Box newBox = new Box(x, y, title, content, id);
 			newBox.setConnectedBoxIds(connectedIds);
 			boxList.addNode(newBox);
+			// The server assigns the id, so a box this client asked for is
+			// written when its add_box comes back
+			if (isOwnChange(message))
+				saveAndLoad.queueBoxUpdate(newBox, boardId);
 		}
 	}
 
+	// Echo of a change this client sent; only the sender writes it
+	private boolean isOwnChange(JSONObject message) {
+		return user != null && user.getUserEmail().equals(message.optString("userEmail", null));
+	}
+
 	private void handleRemoteUpdateBox(JSONObject message) {
 		int id = message.getInt("boxId");
 		Box boxToUpdate = boxList.getBoxById(id);
@@ -710,7 +731,7 @@ public class BoardPanel extends JPanel implements MouseListener, MouseMotionList
 			Box current = boxList.getFirstNode();
 			while (current != null) {
 				if (current.getId() != boxIdToDelete)
-					current.getConnectedBoxIds().remove(Integer.valueOf(boxIdToDelete));
+					current.removeConnection(boxIdToDelete);
 				current = current.getNext();
 			}
 			boxList.deleteNodeById(boxIdToDelete);
@@ -822,6 +843,7 @@ public class BoardPanel extends JPanel implements MouseListener, MouseMotionList
 				deleteMessage.put("boardId", boardId);
 				deleteMessage.put("userEmail", userEmailForLog);
 				deleteMessage.put("boxId", boxId);
+				OperationTrace.start(deleteMessage);
 				serverConnection.sendMessage(deleteMessage);
 				System.out.println("BoardPanel (" + userEmailForLog + ") SEND_DELETE_BOX: Box ID " + boxId);
 			} catch (Exception e) {
@@ -842,6 +864,7 @@ public class BoardPanel extends JPanel implements MouseListener, MouseMotionList
 					deleteConnMessage.put("userEmail", userEmailForLog);
 					deleteConnMessage.put("sourceBoxId", boxId);
 					deleteConnMessage.put("targetBoxId", targetId);
+					OperationTrace.start(deleteConnMessage);
 					serverConnection.sendMessage(deleteConnMessage);
 					System.out.println("BoardPanel (" + userEmailForLog + ") SEND_DELETE_CONNECTION: " + boxId + " -> "
 							+ targetId);
@@ -851,13 +874,4 @@ public class BoardPanel extends JPanel implements MouseListener, MouseMotionList
 			}
 		}
 	}
-
-	private void saveBoxToDatabase(Box box) {
-		if (saveAndLoad.isDatabasePrimary()) {
-			boolean saved = saveAndLoad.saveBoxUpdate(box, this.boardId);
-			if (!saved) {
-				System.err.println("Failed to save box to database");
-			}
-		}
-	}
 }
\ No newline at end of file
@@ -37,6 +37,22 @@ public class Box {
 	public int boxX, boxY, boxHeight, boxWidth;
 	public boolean mouseDraggedBox;
 	public Color boxColor = new Color(240, 240, 240);
+	//////////////////////////////////////////////
+
+	//////////////////////////////////////////////
+	//////// Dirty tracking for saves/////////////
+	//////////////////////////////////////////////
+	public static final int DIRTY_POSITION = 1;
+	public static final int DIRTY_SIZE = 1 << 1;
+	public static final int DIRTY_TEXT = 1 << 2;
+	public static final int DIRTY_COLOR = 1 << 3;
+	public static final int DIRTY_CONNECTIONS = 1 << 4;
+	// Not stored in the database yet
+	public static final int DIRTY_NEW = 1 << 5;
+	public static final int DIRTY_ALL = DIRTY_POSITION | DIRTY_SIZE | DIRTY_TEXT | DIRTY_COLOR | DIRTY_CONNECTIONS
+			| DIRTY_NEW;
+	// New boxes are fully dirty until a save or a database load says otherwise
+	private int dirtyFields = DIRTY_ALL;
 
 	//////////////////////////////////////////////
 	/////////// Identity Algorithms Below:////////
@@ -105,6 +121,7 @@ public class Box {
 		// Simplified for now:
 		if (iD != this.id && !this.linkTo.contains(iD)) {
 			this.linkTo.add(iD);
+			markDirty(DIRTY_CONNECTIONS);
 			if (checkList != null) {
 				Box targetBox = checkList.getBoxById(iD); // Use corrected method name
 				if (targetBox != null) {
@@ -118,8 +135,10 @@ public class Box {
 	}
 
 	public void EmptyTheListOfConnection() {
-		if (linkTo != null)
+		if (linkTo != null && !linkTo.isEmpty()) {
 			linkTo.clear();
+			markDirty(DIRTY_CONNECTIONS);
+		}
 	}
 
 	// ADD LINK (INPUT/PARAMETER IS THE ID OF THE
@@ -130,6 +149,7 @@ public class Box {
 			if (linkTo == null)
 				linkTo = new ArrayList<>();
 			linkTo.add(i);
+			markDirty(DIRTY_CONNECTIONS);
 		}
 	}
 
@@ -137,6 +157,7 @@ public class Box {
 	public void deleteLink(int i, BoxList list) {
 		if (linkTo != null && linkTo.contains(Integer.valueOf(i))) {
 			linkTo.remove(Integer.valueOf(i));
+			markDirty(DIRTY_CONNECTIONS);
 			if (list != null) {
 				Box targetBox = list.getBoxById(i);
 				if (targetBox != null && targetBox.getIsConnectedBy() == this.id) {
@@ -204,7 +225,10 @@ public class Box {
 	}
 
 	public void setTitle(String newTitle) {
-		this.Title = (newTitle == null) ? "" : newTitle;
+		newTitle = (newTitle == null) ? "" : newTitle;
+		if (!newTitle.equals(this.Title))
+			markDirty(DIRTY_TEXT);
+		this.Title = newTitle;
 		recalculateSize();
 	}
 
@@ -233,7 +257,10 @@ public class Box {
 	}
 
 	public void setContent(String newContent) {
-		this.content = (newContent == null) ? "" : newContent;
+		newContent = (newContent == null) ? "" : newContent;
+		if (!newContent.equals(this.content))
+			markDirty(DIRTY_TEXT);
+		this.content = newContent;
 		recalculateSize();
 	}
 
@@ -248,40 +275,42 @@ public class Box {
 	// Setter Methods
 	// sets x-coordinate of box
 	public void setBoxX(int boxX) {
-		this.boxX = boxX;
+		setBoxPosition(boxX, this.boxY);
 	}
 
 	// sets y-coordinate of box
 	public void setBoxY(int boxY) {
-		this.boxY = boxY;
+		setBoxPosition(this.boxX, boxY);
 	}
 
 	//// sets x & y coordinates of box
 	public void setBoxPosition(int boxX, int boxY) {
+		if (boxX != this.boxX || boxY != this.boxY)
+			markDirty(DIRTY_POSITION);
 		this.boxX = boxX;
 		this.boxY = boxY;
 	}// SET BOX COORDINATE
 
 	public void setBoxHeight(int height) {
-		this.boxHeight = height;
+		setBoxSize(height, this.boxWidth);
 	}
 
 	public void setBoxWidth(int width) {
-		this.boxWidth = width;
+		setBoxSize(this.boxHeight, width);
 	}
 
 	// Sets both height and width of box
 	public void setBoxSize(int height, int width) {
+		if (height != this.boxHeight || width != this.boxWidth)
+			markDirty(DIRTY_SIZE);
 		this.boxHeight = height;
 		this.boxWidth = width;
 	}
 
 	// Sets coordinates and size of box
 	public void setBox(int boxX, int boxY, int height, int width) {
-		this.boxX = boxX;
-		this.boxY = boxY;
-		this.boxHeight = height;
-		this.boxWidth = width;
+		setBoxPosition(boxX, boxY);
+		setBoxSize(height, width);
 	}
 
 	// Sets condition of the relationship between the mouse and the box
@@ -324,6 +353,8 @@ public class Box {
 	}
 
 	public void setBoxColor(Color boxColor) {
+		if (!Objects.equals(boxColor, this.boxColor))
+			markDirty(DIRTY_COLOR);
 		this.boxColor = boxColor;
 	}
 
@@ -353,11 +384,10 @@ public class Box {
 
 	// Method to completely replace the set of connected box IDs
 	public void setConnectedBoxIds(List<Integer> newConnectionIds) {
-		if (newConnectionIds == null) {
-			this.linkTo = new ArrayList<>();
-		} else {
-			this.linkTo = new ArrayList<>(newConnectionIds); // Create a new list to avoid external modification issues
-		}
+		List<Integer> newLinks = (newConnectionIds == null) ? new ArrayList<>() : new ArrayList<>(newConnectionIds); // Create a new list to avoid external modification issues
+		if (!newLinks.equals(this.linkTo))
+			markDirty(DIRTY_CONNECTIONS);
+		this.linkTo = newLinks;
 	}
 
 	// Adds a single connection if it doesn't already exist
@@ -367,17 +397,44 @@ public class Box {
 		}
 		if (!this.linkTo.contains(boxId) && boxId != this.id) { // Prevent self-connection
 			this.linkTo.add(boxId);
+			markDirty(DIRTY_CONNECTIONS);
 			return true;
 		}
 		return false;
 	}
 
 	public void removeConnection(int boxId) {
-		if (this.linkTo != null) {
-			this.linkTo.remove(Integer.valueOf(boxId));
+		if (this.linkTo != null && this.linkTo.remove(Integer.valueOf(boxId))) {
+			markDirty(DIRTY_CONNECTIONS);
 		}
 	}
 
+	// Bitmask of DIRTY_* fields changed since the last database save or load
+	public int getDirtyFields() {
+		return dirtyFields;
+	}
+
+	public boolean isDirty() {
+		return dirtyFields != 0;
+	}
+
+	public boolean isDirty(int fields) {
+		return (dirtyFields & fields) != 0;
+	}
+
+	public void markDirty(int fields) {
+		dirtyFields |= fields;
+	}
+
+	// Clears only the given fields, so changes made while a save was running stay dirty
+	public void clearDirty(int fields) {
+		dirtyFields &= ~fields;
+	}
+
+	public void markClean() {
+		dirtyFields = 0;
+	}
+
 	////////////////////////////////////////////////
 	////////////////////////////////////////////////
 
@@ -460,6 +517,7 @@ public class Box {
 	}
 
 	public void recalculateSize() {
+		int oldWidth = boxWidth, oldHeight = boxHeight;
 		// Minimum dimensions
 		boxWidth = Math.max(100, 20 + (this.Title != null ? this.Title.length() * 7 : 0));
 
@@ -481,6 +539,8 @@ public class Box {
 		} else {
 			boxHeight = 50; // Default height
 		}
+		if (boxWidth != oldWidth || boxHeight != oldHeight)
+			markDirty(DIRTY_SIZE);
 	}
 
 }
@@ -2,6 +2,7 @@ package main.java.board;
 
 import java.awt.Graphics;
 import java.awt.Point;
+import java.util.List;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -88,6 +89,26 @@ public class BoxList {
 		size++;
 	}
 
+	// Appends boxes in order, walking to the end of the list only once
+	public void addNodes(List<Box> boxes) {
+		Box last = top;
+		while (last != null && last.getNext() != null) {
+			last = last.getNext();
+		}
+		for (Box box : boxes) {
+			if (box == null)
+				continue;
+			box.setNext(null);
+			if (last == null) {
+				top = box;
+			} else {
+				last.setNext(box);
+			}
+			last = box;
+			size++;
+		}
+	}
+
 	public void deleteSelectedNode() {
 		if (top == null) {
 			return;
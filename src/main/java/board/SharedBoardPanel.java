@@ -6,18 +6,35 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.List;
+import java.util.UUID;
 import main.java.auth.User;
+import main.java.database.BoardDAO;
+import main.java.database.BoardRow;
+import main.java.database.DatabaseService;
 import main.java.utils.DatabaseSaveAndLoad;
+import main.java.utils.LazyPageLoader;
 
 /**
  * Enhanced admin panel for managing shared boards and system administration
  */
 public class SharedBoardPanel extends JPanel {
+    private static final int BOARD_PAGE_SIZE = 50;
+
     private User user;
     private DatabaseSaveAndLoad saveAndLoad;
-    private DefaultListModel<String> boardListModel;
-    private JList<String> boardList;
+    private DefaultListModel<BoardEntry> boardListModel;
+    private JList<BoardEntry> boardList;
     private JTextArea logArea;
+    // Pages shared boards in from the database; null in file mode
+    private LazyPageLoader<BoardRow> boardLoader;
+
+    // A listed board; row is null for boards that only exist as files
+    private record BoardEntry(String name, BoardRow row) {
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
 
     public SharedBoardPanel(User user) {
         this.user = user;
@@ -111,6 +128,12 @@ public class SharedBoardPanel extends JPanel {
         scrollPane.setPreferredSize(new Dimension(300, 200));
         listPanel.add(scrollPane, BorderLayout.CENTER);
 
+        if (saveAndLoad.isDatabasePrimary()) {
+            BoardDAO boardDAO = saveAndLoad.getDatabaseService().getBoardDAO();
+            boardLoader = new LazyPageLoader<>(scrollPane, BOARD_PAGE_SIZE, boardDAO::getSharedBoardsPage,
+                    this::appendBoardPage);
+        }
+
         // Board action buttons
         JPanel buttonPanel = new JPanel(new FlowLayout());
 
@@ -128,10 +151,14 @@ public class SharedBoardPanel extends JPanel {
         JButton viewButton = new JButton("👁️ View Board");
         viewButton.addActionListener(e -> viewSelectedBoard());
 
+        JButton cloneButton = new JButton("📑 Clone Board");
+        cloneButton.addActionListener(e -> cloneSelectedBoard());
+
         buttonPanel.add(refreshButton);
         buttonPanel.add(createButton);
         buttonPanel.add(deleteButton);
         buttonPanel.add(viewButton);
+        buttonPanel.add(cloneButton);
 
         listPanel.add(buttonPanel, BorderLayout.SOUTH);
         panel.add(listPanel, BorderLayout.WEST);
@@ -147,6 +174,7 @@ public class SharedBoardPanel extends JPanel {
                 "Here you can:\n" +
                 "• Create new shared boards for team collaboration\n" +
                 "• Delete boards (WARNING: This removes all content)\n" +
+                "• Clone a board to use it as a template\n" +
                 "• View board statistics and usage\n" +
                 "• Monitor system activity\n\n" +
                 "Select a board from the list to view details.\n");
@@ -240,13 +268,18 @@ public class SharedBoardPanel extends JPanel {
 
     private void refreshBoardList() {
         boardListModel.clear();
+        if (boardLoader != null) {
+            logArea.append("\n=== Refreshing Board List ===\n");
+            boardLoader.reset();
+            return;
+        }
         List<String> boards = saveAndLoad.getBoardList();
 
         logArea.append("\n=== Refreshing Board List ===\n");
         logArea.append("Found " + boards.size() + " board(s)\n");
 
         for (String board : boards) {
-            boardListModel.addElement(board);
+            boardListModel.addElement(new BoardEntry(board, null));
             logArea.append("- " + board + "\n");
         }
 
@@ -257,6 +290,24 @@ public class SharedBoardPanel extends JPanel {
         logArea.setCaretPosition(logArea.getDocument().getLength());
     }
 
+    private void appendBoardPage(List<BoardRow> rows) {
+        for (BoardRow row : rows) {
+            boardListModel.addElement(new BoardEntry(row.boardName(), row));
+        }
+        logArea.append("Loaded " + boardListModel.size() + " board(s)"
+                + (boardLoader.isExhausted() ? "\n" : ", scroll for more\n"));
+        logArea.setCaretPosition(logArea.getDocument().getLength());
+    }
+
+    private boolean hasBoardNamed(String name) {
+        for (int i = 0; i < boardListModel.size(); i++) {
+            if (boardListModel.get(i).name().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private void createNewBoard() {
         String boardName = JOptionPane.showInputDialog(this,
                 "Enter name for new shared board:",
@@ -267,7 +318,7 @@ public class SharedBoardPanel extends JPanel {
             boardName = boardName.trim();
 
             // Check if board already exists
-            if (boardListModel.contains(boardName)) {
+            if (hasBoardNamed(boardName)) {
                 JOptionPane.showMessageDialog(this,
                         "A board with that name already exists!",
                         "Board Creation Failed",
@@ -276,7 +327,7 @@ public class SharedBoardPanel extends JPanel {
             }
 
             // Create new board (for now, just add to list)
-            boardListModel.addElement(boardName);
+            boardListModel.addElement(new BoardEntry(boardName, null));
             logArea.append("\n✅ Created new board: " + boardName + "\n");
             logArea.append("Board is now available for all users to collaborate on.\n");
             logArea.setCaretPosition(logArea.getDocument().getLength());
@@ -290,14 +341,15 @@ public class SharedBoardPanel extends JPanel {
     }
 
     private void deleteSelectedBoard() {
-        String selectedBoard = boardList.getSelectedValue();
-        if (selectedBoard == null) {
+        BoardEntry selected = boardList.getSelectedValue();
+        if (selected == null) {
             JOptionPane.showMessageDialog(this,
                     "Please select a board to delete.",
                     "No Board Selected",
                     JOptionPane.WARNING_MESSAGE);
             return;
         }
+        String selectedBoard = selected.name();
 
         int confirm = JOptionPane.showConfirmDialog(this,
                 "⚠️ WARNING: This will permanently delete the board '" + selectedBoard +
@@ -307,9 +359,12 @@ public class SharedBoardPanel extends JPanel {
                 JOptionPane.WARNING_MESSAGE);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            boolean success = saveAndLoad.deleteBoard(selectedBoard);
+            // Boards listed from the database are deleted there, not as files
+            boolean success = selected.row() != null
+                    ? saveAndLoad.getDatabaseService().deleteBoardFromDatabase(selected.row().boardId())
+                    : saveAndLoad.deleteBoard(selectedBoard);
             if (success) {
-                boardListModel.removeElement(selectedBoard);
+                boardListModel.removeElement(selected);
                 logArea.append("\n🗑️ DELETED board: " + selectedBoard + "\n");
                 logArea.append("All content and tasks have been permanently removed.\n");
                 logArea.setCaretPosition(logArea.getDocument().getLength());
@@ -327,9 +382,81 @@ public class SharedBoardPanel extends JPanel {
         }
     }
 
+    private void cloneSelectedBoard() {
+        BoardEntry selected = boardList.getSelectedValue();
+        if (selected == null) {
+            JOptionPane.showMessageDialog(this,
+                    "Please select a board to clone.",
+                    "No Board Selected",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        String selectedBoard = selected.name();
+        BoardRow source = selected.row();
+        if (source == null) {
+            JOptionPane.showMessageDialog(this,
+                    "Cloning needs the board to be stored in the database, which is not available.",
+                    "Clone Unavailable",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        String newName = (String) JOptionPane.showInputDialog(this,
+                "Enter name for the copy of '" + selectedBoard + "':",
+                "Clone Board",
+                JOptionPane.PLAIN_MESSAGE,
+                null, null, "Copy of " + selectedBoard);
+        if (newName == null || newName.trim().isEmpty()) {
+            return;
+        }
+        String boardName = newName.trim();
+        if (hasBoardNamed(boardName)) {
+            JOptionPane.showMessageDialog(this,
+                    "A board with that name already exists!",
+                    "Clone Failed",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        String newBoardId = "board-" + UUID.randomUUID();
+        DatabaseService databaseService = saveAndLoad.getDatabaseService();
+        logArea.append("\n📑 Cloning board: " + selectedBoard + "...\n");
+        logArea.setCaretPosition(logArea.getDocument().getLength());
+
+        // The copy runs in the database, but large boards still take a moment
+        new SwingWorker<Boolean, Void>() {
+            @Override
+            protected Boolean doInBackground() {
+                return databaseService.cloneBoard(source.boardId(), newBoardId, boardName, user.getUserEmail());
+            }
+
+            @Override
+            protected void done() {
+                boolean success;
+                try {
+                    success = get();
+                } catch (Exception e) {
+                    success = false;
+                }
+                if (success) {
+                    logArea.append("✅ Created board '" + boardName + "' from '" + selectedBoard + "'\n");
+                    refreshBoardList();
+                } else {
+                    logArea.append("❌ Failed to clone board: " + selectedBoard + "\n");
+                    JOptionPane.showMessageDialog(SharedBoardPanel.this,
+                            "Failed to clone board. It may have been deleted or the database is unavailable.",
+                            "Clone Failed",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+                logArea.setCaretPosition(logArea.getDocument().getLength());
+            }
+        }.execute();
+    }
+
     private void viewSelectedBoard() {
-        String selectedBoard = boardList.getSelectedValue();
-        if (selectedBoard == null) {
+        BoardEntry selected = boardList.getSelectedValue();
+        if (selected == null) {
             JOptionPane.showMessageDialog(this,
                     "Please select a board to view.",
                     "No Board Selected",
@@ -337,6 +464,7 @@ public class SharedBoardPanel extends JPanel {
             return;
         }
 
+        String selectedBoard = selected.name();
         logArea.append("\n👁️ Viewing board: " + selectedBoard + "\n");
         logArea.append("Board details:\n");
         logArea.append("- Name: " + selectedBoard + "\n");
@@ -8,11 +8,20 @@ import java.time.format.*;
 import java.util.*;
 import java.util.List;
 import java.text.SimpleDateFormat;
+import java.sql.Timestamp;
 import main.java.auth.User;
 import javax.swing.table.AbstractTableModel;
 import main.java.calendar.Deadline;
+import main.java.database.DeadlineDAO;
+import main.java.database.DeadlineRow;
+import main.java.utils.DatabaseSaveAndLoad;
+import main.java.utils.LazyPageLoader;
 
 public class CalendarPanel extends JPanel {
+    private static final int DEADLINE_PAGE_SIZE = 100;
+    // Visible month plus the prefetched neighbours, with room to page back
+    private static final int MONTH_CACHE_SIZE = 6;
+
     private LocalDate currentDate = LocalDate.now();
     private JLabel monthYearLabel;
     private JPanel calendarGrid;
@@ -22,6 +31,18 @@ public class CalendarPanel extends JPanel {
     private JTable calendarTable;
     private java.util.Calendar currentCalendar;
     private ArrayList<Deadline> deadlinesList;
+    // Opened on first use of stored deadlines
+    private DatabaseSaveAndLoad saveAndLoad;
+    // Stored deadlines of recently viewed months by day, least recently used
+    // evicted first. Only touched on the EDT.
+    private final Map<YearMonth, Map<LocalDate, List<Deadline>>> monthCache = new LinkedHashMap<>(16, 0.75f,
+            true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<YearMonth, Map<LocalDate, List<Deadline>>> eldest) {
+            return size() > MONTH_CACHE_SIZE;
+        }
+    };
+    private final Set<YearMonth> monthsLoading = new HashSet<>();
 
     private String[] weekdays = { "Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat" };
     private String[] months = {
@@ -212,6 +233,77 @@ public class CalendarPanel extends JPanel {
         // Update UI
         calendarGrid.revalidate();
         calendarGrid.repaint();
+
+        // Fetch the stored deadlines of this month and prefetch its neighbours
+        YearMonth visibleMonth = YearMonth.from(currentDate);
+        loadMonth(visibleMonth);
+        loadMonth(visibleMonth.minusMonths(1));
+        loadMonth(visibleMonth.plusMonths(1));
+    }
+
+    /**
+     * Fetches one month's stored deadlines in the background unless cached or
+     * already in flight, and redraws if that month is still the visible one.
+     * A failed fetch is not cached.
+     * Administrators see every deadline, other users only their own.
+     */
+    private void loadMonth(YearMonth month) {
+        DeadlineDAO deadlineDAO = getDeadlineDAO();
+        if (deadlineDAO == null || monthCache.containsKey(month) || !monthsLoading.add(month)) {
+            return;
+        }
+        Timestamp from = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp to = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+        String assignedTo = isAdmin ? null : user.getUserEmail();
+
+        new SwingWorker<List<DeadlineRow>, Void>() {
+            @Override
+            protected List<DeadlineRow> doInBackground() {
+                return deadlineDAO.getDeadlinesInRange(from, to, assignedTo);
+            }
+
+            @Override
+            protected void done() {
+                monthsLoading.remove(month);
+                List<DeadlineRow> rows;
+                try {
+                    rows = get();
+                } catch (Exception e) {
+                    System.err.println("Error loading deadlines for " + month + ": " + e.getMessage());
+                    return;
+                }
+                if (rows == null) {
+                    // Not cached, so the month is fetched again on the next visit
+                    return;
+                }
+                Map<LocalDate, List<Deadline>> byDay = new HashMap<>();
+                for (DeadlineRow row : rows) {
+                    Deadline deadline = toCalendarDeadline(row);
+                    byDay.computeIfAbsent(deadline.getDate(), k -> new ArrayList<>()).add(deadline);
+                }
+                monthCache.put(month, byDay);
+                if (month.equals(YearMonth.from(currentDate))) {
+                    updateCalendarView();
+                }
+            }
+        }.execute();
+    }
+
+    private DeadlineDAO getDeadlineDAO() {
+        if (saveAndLoad == null) {
+            saveAndLoad = new DatabaseSaveAndLoad();
+        }
+        return saveAndLoad.isDatabasePrimary() ? saveAndLoad.getDatabaseService().getDeadlineDAO() : null;
+    }
+
+    // Deadlines set in this session plus the stored ones, if that month is loaded
+    private List<Deadline> deadlinesOn(LocalDate date) {
+        List<Deadline> result = new ArrayList<>(deadlines.getOrDefault(date, Collections.emptyList()));
+        Map<LocalDate, List<Deadline>> stored = monthCache.get(YearMonth.from(date));
+        if (stored != null) {
+            result.addAll(stored.getOrDefault(date, Collections.emptyList()));
+        }
+        return result;
     }
 
     private JPanel createDayPanel(LocalDate date) {
@@ -231,7 +323,7 @@ public class CalendarPanel extends JPanel {
         dayPanel.add(dateLabel, BorderLayout.NORTH);
 
         // Add deadline indicators if there are any for this date
-        List<Deadline> dayDeadlines = deadlines.get(date);
+        List<Deadline> dayDeadlines = deadlinesOn(date);
         if (dayDeadlines != null && !dayDeadlines.isEmpty()) {
             JPanel deadlinePanel = new JPanel();
             deadlinePanel.setLayout(new BoxLayout(deadlinePanel, BoxLayout.Y_AXIS));
@@ -327,7 +419,7 @@ public class CalendarPanel extends JPanel {
     }
 
     private void showDeadlinesForDate(LocalDate date) {
-        List<Deadline> dayDeadlines = deadlines.get(date);
+        List<Deadline> dayDeadlines = deadlinesOn(date);
         if (dayDeadlines == null || dayDeadlines.isEmpty())
             return;
 
@@ -383,8 +475,8 @@ public class CalendarPanel extends JPanel {
         panel.add(titleLabel, BorderLayout.NORTH);
         panel.add(descArea, BorderLayout.CENTER);
 
-        // Add edit/delete buttons for admin
-        if (isAdmin) {
+        // Add edit/delete buttons for admin; stored deadlines are read-only here
+        if (isAdmin && deadlines.getOrDefault(deadline.getDate(), Collections.emptyList()).contains(deadline)) {
             JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
 
             JButton editButton = new JButton("Edit");
@@ -530,6 +622,17 @@ public class CalendarPanel extends JPanel {
         JScrollPane scrollPane = new JScrollPane(deadlineList);
         scrollPane.setPreferredSize(new Dimension(400, 300));
 
+        // Stored deadlines follow the local ones, fetched a page at a time as the list scrolls
+        DeadlineDAO deadlineDAO = getDeadlineDAO();
+        if (deadlineDAO != null) {
+            new LazyPageLoader<DeadlineRow>(scrollPane, DEADLINE_PAGE_SIZE, deadlineDAO::getDeadlinesPage,
+                    rows -> {
+                        for (DeadlineRow row : rows) {
+                            listModel.addElement(toCalendarDeadline(row));
+                        }
+                    }).loadMore();
+        }
+
         JPanel buttonPanel = new JPanel();
         JButton viewButton = new JButton("View Details");
         viewButton.addActionListener(e -> {
@@ -607,6 +710,13 @@ public class CalendarPanel extends JPanel {
         return LocalDate.of(year, month + 1, day);
     }
 
+    private Deadline toCalendarDeadline(DeadlineRow row) {
+        LocalDate date = row.dueDate().toLocalDateTime().toLocalDate();
+        Deadline deadline = new Deadline(row.description(), "Assigned to: " + row.assignedTo(), date);
+        deadline.setCompleted(row.completed());
+        return deadline;
+    }
+
     private String formatDate(LocalDate date) {
         return date.format(DateTimeFormatter.ofPattern("MMMM d, yyyy"));
     }
@@ -631,11 +741,13 @@ public class CalendarPanel extends JPanel {
     }
 
     public List<Deadline> getDeadlinesForDate(LocalDate date) {
-        return deadlines.getOrDefault(date, new ArrayList<>());
+        return deadlinesOn(date);
     }
 
     public void setAdminMode(boolean isAdmin) {
         this.isAdmin = isAdmin;
+        // Cached months were filtered for the old role
+        monthCache.clear();
         removeAll();
 
         // Recreate UI with new permissions
@@ -9,6 +9,8 @@ import java.util.HashMap;
 import java.io.*;
 import java.nio.file.*;
 import main.java.auth.User;
+import main.java.database.ChecklistDAO;
+import main.java.database.ChecklistItemRow;
 import main.java.network.ServerConnection;
 import main.java.utils.DatabaseSaveAndLoad;
 import org.json.*;
@@ -22,6 +24,9 @@ public class ChecklistPanel extends JPanel {
     private User user;
     private ServerConnection serverConnection;
     private DatabaseSaveAndLoad saveAndLoad;
+    // Set when goals are stored per item in the database; -1 for file only
+    private ChecklistDAO checklistDAO;
+    private int checklistId = -1;
     private static int nextId = 1;
     private static final String CHECKLIST_NAME = "Team Goals";
     private static final String GOALS_FILE = "data/shared_goals.json"; // Custom file for goals
@@ -89,8 +94,16 @@ public class ChecklistPanel extends JPanel {
         JButton removeButton = new JButton("Remove Selected");
         removeButton.addActionListener(e -> removeSelectedItem());
 
+        JButton moveUpButton = new JButton("Move Up");
+        moveUpButton.addActionListener(e -> moveSelectedItem(-1));
+
+        JButton moveDownButton = new JButton("Move Down");
+        moveDownButton.addActionListener(e -> moveSelectedItem(1));
+
         toolbar.add(clearCompletedButton);
         toolbar.add(removeButton);
+        toolbar.add(moveUpButton);
+        toolbar.add(moveDownButton);
 
         // Create main content panel
         JPanel mainPanel = new JPanel(new BorderLayout());
@@ -105,22 +118,93 @@ public class ChecklistPanel extends JPanel {
         checklists.add(currentChecklist);
 
         // Check database availability
-        if (saveAndLoad.isDatabasePrimary()) {
+        if (saveAndLoad.isDatabasePrimary() && user != null) {
+            checklistDAO = saveAndLoad.getDatabaseService().getChecklistDAO();
+            if (saveAndLoad.isDatabaseAvailable()) {
+                checklistId = checklistDAO.getOrCreateChecklistId(user.getUserEmail(), CHECKLIST_NAME);
+            }
+        }
+        if (checklistId > 0) {
             System.out.println("ChecklistPanel: Using database storage");
+            loadGoalsFromDatabase();
         } else {
             System.out.println("ChecklistPanel: Using file storage");
         }
 
-        // ALWAYS load saved goals first using our custom JSON method
-        loadGoalsFromDisk();
-
-        // Add sample items ONLY if no goals exist at all
+        // Fall back to the saved JSON goals; with the database these are
+        // stored once so later edits can be written per item
         if (itemsModel.isEmpty()) {
-            System.out.println("No existing goals found, adding sample goals");
-            addSampleItems();
-            saveGoalsToDisk(); // Save sample items immediately
-        } else {
-            System.out.println("Loaded " + itemsModel.getSize() + " existing goals from disk");
+            loadGoalsFromDisk();
+            if (itemsModel.isEmpty()) {
+                System.out.println("No existing goals found, adding sample goals");
+                addSampleItems();
+            } else {
+                System.out.println("Loaded " + itemsModel.getSize() + " existing goals from disk");
+            }
+            for (int i = 0; i < itemsModel.getSize(); i++) {
+                storeItem(itemsModel.getElementAt(i));
+            }
+        }
+        saveGoalsToDisk();
+    }
+
+    // A panel opened while the database was unreachable works on the JSON
+    // goals; on the first edit after it is back the panel switches over
+    private boolean usesDatabase() {
+        if (checklistId <= 0 && checklistDAO != null && saveAndLoad.isDatabaseAvailable()) {
+            switchToDatabase();
+        }
+        return checklistId > 0;
+    }
+
+    /**
+     * Replaces the stored goals with the ones shown, which were kept on disk
+     * meanwhile, and picks up their row ids
+     */
+    private void switchToDatabase() {
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int i = 0; i < itemsModel.getSize(); i++) {
+            ChecklistItem item = itemsModel.getElementAt(i);
+            Map<String, Object> itemMap = new HashMap<>();
+            itemMap.put("text", item.getText());
+            itemMap.put("completed", item.isCompleted());
+            items.add(itemMap);
+        }
+        if (!checklistDAO.saveChecklist(user.getUserEmail(), CHECKLIST_NAME, items)) {
+            return;
+        }
+        int id = checklistDAO.getOrCreateChecklistId(user.getUserEmail(), CHECKLIST_NAME);
+        if (id <= 0) {
+            return;
+        }
+        List<ChecklistItemRow> rows = checklistDAO.getItems(id);
+        for (int i = 0; i < rows.size() && i < itemsModel.getSize(); i++) {
+            itemsModel.getElementAt(i).setItemId(rows.get(i).itemId());
+        }
+        checklistId = id;
+        System.out.println("ChecklistPanel: Database reachable again, using database storage");
+    }
+
+    /**
+     * Loads the goals stored per item in the database, in position order
+     */
+    private void loadGoalsFromDatabase() {
+        for (ChecklistItemRow row : checklistDAO.getItems(checklistId)) {
+            ChecklistItem item = new ChecklistItem(nextId++, row.text(), row.completed());
+            item.setItemId(row.itemId());
+            itemsModel.addElement(item);
+            currentChecklist.addItem(item);
+        }
+        System.out.println("Loaded " + itemsModel.getSize() + " goals from database");
+    }
+
+    // Inserts an item that isn't stored yet at the end of the checklist
+    private void storeItem(ChecklistItem item) {
+        if (usesDatabase() && item.getItemId() <= 0) {
+            int itemId = checklistDAO.insertItem(checklistId, item.getText(), item.isCompleted());
+            if (itemId > 0) {
+                item.setItemId(itemId);
+            }
         }
     }
 
@@ -139,7 +223,8 @@ public class ChecklistPanel extends JPanel {
                 currentChecklist.addItem(item);
             }
 
-            // Save to disk immediately
+            // Store the new row, then save to disk
+            storeItem(item);
             saveGoalsToDisk();
 
             // Send to server if connected
@@ -169,7 +254,10 @@ public class ChecklistPanel extends JPanel {
             currentChecklist.getItems().get(index).setCompleted(item.isCompleted());
         }
 
-        // Save to disk
+        // Save the one changed row, then to disk
+        if (usesDatabase() && item.getItemId() > 0) {
+            checklistDAO.setItemCompleted(checklistId, item.getItemId(), item.isCompleted());
+        }
         saveGoalsToDisk();
 
         // Send to server if connected
@@ -191,7 +279,10 @@ public class ChecklistPanel extends JPanel {
                 currentChecklist.getItems().removeIf(i -> i.getId() == item.getId());
             }
 
-            // Save to disk
+            // Delete the row, then save to disk
+            if (usesDatabase() && item.getItemId() > 0) {
+                checklistDAO.deleteItems(checklistId, List.of(item.getItemId()));
+            }
             saveGoalsToDisk();
 
             // Send to server if connected
@@ -221,7 +312,16 @@ public class ChecklistPanel extends JPanel {
             }
         }
 
-        // Save to disk
+        // Delete the removed rows in one statement, then save to disk
+        if (usesDatabase()) {
+            List<Integer> itemIds = new ArrayList<>();
+            for (ChecklistItem item : itemsToRemove) {
+                if (item.getItemId() > 0) {
+                    itemIds.add(item.getItemId());
+                }
+            }
+            checklistDAO.deleteItems(checklistId, itemIds);
+        }
         saveGoalsToDisk();
 
         // Send removal to server for each item
@@ -234,6 +334,34 @@ public class ChecklistPanel extends JPanel {
         System.out.println("Cleared " + itemsToRemove.size() + " completed goals");
     }
 
+    /**
+     * Moves the selected goal one place up (-1) or down (1). In the database
+     * only the moved item's position is written.
+     */
+    private void moveSelectedItem(int direction) {
+        int selectedIndex = itemsList.getSelectedIndex();
+        int targetIndex = selectedIndex + direction;
+        if (selectedIndex < 0 || targetIndex < 0 || targetIndex >= itemsModel.getSize())
+            return;
+
+        ChecklistItem item = itemsModel.remove(selectedIndex);
+        itemsModel.add(targetIndex, item);
+        itemsList.setSelectedIndex(targetIndex);
+
+        if (currentChecklist != null) {
+            currentChecklist.getItems().remove(item);
+            currentChecklist.getItems().add(Math.min(targetIndex, currentChecklist.getItems().size()), item);
+        }
+
+        Integer afterItemId = targetIndex > 0 ? itemsModel.getElementAt(targetIndex - 1).getItemId() : null;
+        if (usesDatabase() && item.getItemId() > 0 && (afterItemId == null || afterItemId > 0)) {
+            checklistDAO.moveItem(checklistId, item.getItemId(), afterItemId);
+        }
+        saveGoalsToDisk();
+
+        System.out.println("Moved goal: " + item.getText() + " to position " + (targetIndex + 1));
+    }
+
     /**
      * Enhanced save method using JSON to preserve all data including IDs
      */
@@ -370,7 +498,8 @@ public class ChecklistPanel extends JPanel {
                         if (currentChecklist != null) {
                             currentChecklist.addItem(newItem);
                         }
-                        // Save when receiving from server
+                        // Store like a local add, so it survives a restart
+                        storeItem(newItem);
                         saveGoalsToDisk();
                         System.out.println("Received new goal from server: " + text);
                     }
@@ -382,7 +511,9 @@ public class ChecklistPanel extends JPanel {
                         if (item.getId() == goalId) {
                             item.setCompleted(completed);
                             itemsModel.set(i, item);
-                            // Save when receiving from server
+                            if (usesDatabase() && item.getItemId() > 0) {
+                                checklistDAO.setItemCompleted(checklistId, item.getItemId(), completed);
+                            }
                             saveGoalsToDisk();
                             System.out.println("Updated goal from server: " + text + " -> " + completed);
                             break;
@@ -393,11 +524,13 @@ public class ChecklistPanel extends JPanel {
                 case "remove":
                     for (int i = 0; i < itemsModel.getSize(); i++) {
                         if (itemsModel.getElementAt(i).getId() == goalId) {
-                            itemsModel.remove(i);
+                            ChecklistItem removed = itemsModel.remove(i);
                             if (currentChecklist != null) {
                                 currentChecklist.getItems().removeIf(item -> item.getId() == goalId);
                             }
-                            // Save when receiving from server
+                            if (usesDatabase() && removed.getItemId() > 0) {
+                                checklistDAO.deleteItems(checklistId, List.of(removed.getItemId()));
+                            }
                             saveGoalsToDisk();
                             System.out.println("Removed goal from server: " + text);
                             break;
@@ -431,6 +564,8 @@ public class ChecklistPanel extends JPanel {
         private int id;
         private String text;
         private boolean completed;
+        // checklist_items.item_id once stored in the database, else 0
+        private int itemId;
 
         public ChecklistItem(int id, String text, boolean completed) {
             this.id = id;
@@ -442,6 +577,14 @@ public class ChecklistPanel extends JPanel {
             return id;
         }
 
+        public int getItemId() {
+            return itemId;
+        }
+
+        public void setItemId(int itemId) {
+            this.itemId = itemId;
+        }
+
         public String getText() {
             return text;
         }
@@ -0,0 +1,72 @@
+package main.java.database;
+
+import main.java.metrics.MetricsRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded LRU cache of serialized boards, keyed by boardId. Each entry
+ * remembers the boards.version it was built from; a lookup is only a hit if
+ * the caller's freshly read version still matches. The version triggers bump
+ * it on every box and connection write, so writes from other clients or
+ * processes are picked up whichever DAO made them.
+ */
+final class BoardCache {
+    private static final MetricsRegistry.Counter LOOKUPS = MetricsRegistry.getInstance().counter(
+            "thinklink_board_cache_total", "Board cache lookups and evictions", "result");
+
+    private final Map<String, Entry> entries;
+
+    BoardCache(int maxBoards) {
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= maxBoards) {
+                    return false;
+                }
+                LOOKUPS.inc("evicted");
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached JSON if it was built from this version, else null
+     */
+    synchronized String get(String boardId, long version) {
+        Entry entry = entries.get(boardId);
+        if (entry == null) {
+            LOOKUPS.inc("miss");
+            return null;
+        }
+        if (version != entry.version) {
+            LOOKUPS.inc("stale");
+            entries.remove(boardId);
+            return null;
+        }
+        LOOKUPS.inc("hit");
+        return entry.json;
+    }
+
+    // version is -1 for a board that doesn't exist, which isn't cached
+    synchronized void put(String boardId, long version, String json) {
+        if (version >= 0) {
+            entries.put(boardId, new Entry(version, json));
+        }
+    }
+
+    synchronized void invalidate(String boardId) {
+        entries.remove(boardId);
+    }
+
+    private static class Entry {
+        final long version;
+        final String json;
+
+        Entry(long version, String json) {
+            this.version = version;
+            this.json = json;
+        }
+    }
+}
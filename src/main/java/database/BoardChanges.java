@@ -0,0 +1,35 @@
+package main.java.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Everything that changed on a board after a given version: rows written
+ * since then and tombstones for rows deleted since then. Apply them and keep
+ * version as the starting point for the next call.
+ */
+public record BoardChanges(String boardId, long version, List<BoxRow> boxes, List<ConnectionRow> connections,
+        List<Tombstone> deleted) {
+
+    public boolean isEmpty() {
+        return boxes.isEmpty() && connections.isEmpty() && deleted.isEmpty();
+    }
+
+    /**
+     * A deleted box (kind "box", itemId is the box id) or connection (kind
+     * "connection", identified by its source and target box ids)
+     */
+    public record Tombstone(String kind, int itemId, int sourceBoxId, int targetBoxId, long version) {
+
+        public static final String BOX = "box";
+        public static final String CONNECTION = "connection";
+
+        // Column list matching from(); keep the two in sync
+        static final String COLUMNS = "kind, item_id, source_box_id, target_box_id, version";
+
+        static Tombstone from(ResultSet rs) throws SQLException {
+            return new Tombstone(rs.getString(1), rs.getInt(2), rs.getInt(3), rs.getInt(4), rs.getLong(5));
+        }
+    }
+}
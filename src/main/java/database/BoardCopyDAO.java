@@ -0,0 +1,323 @@
+package main.java.database;
+
+import main.java.board.Box;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.copy.CopyOut;
+
+import java.awt.Color;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk board import and export over PostgreSQL COPY, for migrating or
+ * cloning boards with tens of thousands of boxes. Rows stream as CSV through
+ * the driver's CopyManager instead of one statement or result row per box.
+ */
+public class BoardCopyDAO {
+    // CSV characters buffered before each write to the COPY stream
+    private static final int COPY_CHUNK_CHARS = 64 * 1024;
+
+    private final DatabaseConnectionManager dbManager;
+
+    public BoardCopyDAO() {
+        this.dbManager = DatabaseConnectionManager.getInstance();
+    }
+
+    /**
+     * Adds boxes and their connections to a board in one transaction,
+     * creating the board if needed. Every box gets a fresh id from the boxes
+     * sequence and connections are remapped to the new ids; connections to
+     * boxes not in the list are dropped. The Box objects are left unchanged.
+     *
+     * Returns old id -> new id for boxes that had an id, or null if the
+     * import failed and nothing was written.
+     */
+    public Map<Integer, Integer> importBoxes(String boardId, String boardName, String creatorEmail, List<Box> boxes) {
+        String boardSql = "INSERT INTO boards (board_id, board_name, creator_email) VALUES (?, ?, ?) ON CONFLICT (board_id) DO UPDATE SET updated_at = CURRENT_TIMESTAMP";
+        // One version for the whole import; the version triggers pick it up
+        // from the transaction settings instead of bumping the board per row
+        String versionSql = "SELECT thinklink_next_board_version(?)";
+        String bulkSql = "SELECT set_config('thinklink.bulk_board', ?, true), set_config('thinklink.bulk_version', ?, true)";
+        // Ids are taken up front so connections can be remapped client-side
+        String idsSql = "SELECT nextval(pg_get_serial_sequence('boxes', 'box_id')) FROM generate_series(1, ?)";
+        String copyBoxesSql = "COPY boxes (box_id, board_id, title, content, position_x, position_y, width, height, color) FROM STDIN WITH (FORMAT csv)";
+        String copyConnectionsSql = "COPY box_connections (board_id, source_box_id, target_box_id) FROM STDIN WITH (FORMAT csv)";
+
+        long start = System.nanoTime();
+        try (Connection conn = dbManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement stmt = conn.prepareStatement(boardSql)) {
+                    stmt.setString(1, boardId);
+                    stmt.setString(2, boardName);
+                    stmt.setString(3, creatorEmail);
+                    stmt.executeUpdate();
+                }
+                long version;
+                try (PreparedStatement stmt = conn.prepareStatement(versionSql)) {
+                    stmt.setString(1, boardId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        rs.next();
+                        version = rs.getLong(1);
+                    }
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(bulkSql)) {
+                    stmt.setString(1, boardId);
+                    stmt.setString(2, Long.toString(version));
+                    stmt.executeQuery().close();
+                }
+
+                int[] newIds = new int[boxes.size()];
+                try (PreparedStatement stmt = conn.prepareStatement(idsSql)) {
+                    stmt.setInt(1, boxes.size());
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        for (int i = 0; i < newIds.length && rs.next(); i++) {
+                            newIds[i] = rs.getInt(1);
+                        }
+                    }
+                }
+                Map<Integer, Integer> idMap = new HashMap<>();
+                for (int i = 0; i < newIds.length; i++) {
+                    int oldId = boxes.get(i).getId();
+                    if (oldId > 0) {
+                        idMap.putIfAbsent(oldId, newIds[i]);
+                    }
+                }
+
+                CopyManager copyManager = conn.unwrap(PGConnection.class).getCopyAPI();
+                CsvCopyWriter boxWriter = new CsvCopyWriter(copyManager, copyBoxesSql);
+                try {
+                    for (int i = 0; i < newIds.length; i++) {
+                        Box box = boxes.get(i);
+                        boxWriter.row(newIds[i], boardId, box.getTitle(), box.getContent(), box.getBoxX(),
+                                box.getBoxY(), box.getBoxWidth(), box.getBoxHeight(), toHexColor(box));
+                    }
+                    boxWriter.finish();
+                } finally {
+                    boxWriter.cancelIfActive();
+                }
+
+                long connectionCount;
+                CsvCopyWriter connectionWriter = new CsvCopyWriter(copyManager, copyConnectionsSql);
+                try {
+                    Set<Integer> targets = new HashSet<>();
+                    for (int i = 0; i < newIds.length; i++) {
+                        targets.clear();
+                        for (Integer oldTarget : boxes.get(i).getConnectedBoxIds()) {
+                            Integer target = idMap.get(oldTarget);
+                            if (target != null && targets.add(target)) {
+                                connectionWriter.row(boardId, newIds[i], target);
+                            }
+                        }
+                    }
+                    connectionCount = connectionWriter.finish();
+                } finally {
+                    connectionWriter.cancelIfActive();
+                }
+
+                conn.commit();
+                System.out.println("BoardCopyDAO: Imported " + newIds.length + " boxes and " + connectionCount
+                        + " connections into " + boardId + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+                return idMap;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error importing board: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Every box of a board with its outgoing connections, read with COPY from
+     * one snapshot. Returns null if the read failed.
+     */
+    public List<Box> exportBoxes(String boardId) {
+        // COPY takes no bind parameters, so the id goes in as a server-quoted literal
+        String quoteSql = "SELECT quote_literal(?)";
+        String copyBoxesSql = "COPY (SELECT box_id, title, content, position_x, position_y, width, height, color FROM boxes WHERE board_id = %s ORDER BY created_at, box_id) TO STDOUT WITH (FORMAT csv)";
+        String copyConnectionsSql = "COPY (SELECT source_box_id, target_box_id FROM box_connections WHERE board_id = %s ORDER BY connection_id) TO STDOUT WITH (FORMAT csv)";
+
+        try (Connection conn = dbManager.getConnection()) {
+            conn.setAutoCommit(false);
+            conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            try {
+                String literal;
+                try (PreparedStatement stmt = conn.prepareStatement(quoteSql)) {
+                    stmt.setString(1, boardId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        rs.next();
+                        literal = rs.getString(1);
+                    }
+                }
+
+                CopyManager copyManager = conn.unwrap(PGConnection.class).getCopyAPI();
+                Map<Integer, Box> boxes = new LinkedHashMap<>();
+                Map<Integer, List<Integer>> connections = new HashMap<>();
+                CopyOut out = copyManager.copyOut(String.format(copyBoxesSql, literal));
+                byte[] row;
+                while ((row = out.readFromCopy()) != null) {
+                    List<String> f = parseCsvRow(row);
+                    int boxId = Integer.parseInt(f.get(0));
+                    Box box = new Box(Integer.parseInt(f.get(3)), Integer.parseInt(f.get(4)), f.get(1),
+                            f.get(2) != null ? f.get(2) : "", boxId);
+                    box.setBoxSize(Integer.parseInt(f.get(6)), Integer.parseInt(f.get(5)));
+                    if (f.get(7) != null) {
+                        try {
+                            box.setBoxColor(Color.decode(f.get(7)));
+                        } catch (NumberFormatException e) {
+                            // Keep the default colour
+                        }
+                    }
+                    boxes.put(boxId, box);
+                    connections.put(boxId, new ArrayList<>());
+                }
+
+                out = copyManager.copyOut(String.format(copyConnectionsSql, literal));
+                while ((row = out.readFromCopy()) != null) {
+                    List<String> f = parseCsvRow(row);
+                    List<Integer> targets = connections.get(Integer.parseInt(f.get(0)));
+                    if (targets != null) {
+                        targets.add(Integer.parseInt(f.get(1)));
+                    }
+                }
+                conn.commit();
+
+                List<Box> result = new ArrayList<>(boxes.size());
+                for (Box box : boxes.values()) {
+                    box.setConnectedBoxIds(connections.get(box.getId()));
+                    box.markClean();
+                    result.add(box);
+                }
+                return result;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+                conn.setAutoCommit(true);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error exporting board: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Fields of one COPY TO csv row; null for NULL, which is the only
+    // unquoted empty field COPY writes
+    private static List<String> parseCsvRow(byte[] row) {
+        String line = new String(row, StandardCharsets.UTF_8);
+        int n = line.endsWith("\n") ? line.length() - 1 : line.length();
+        List<String> fields = new ArrayList<>();
+        int i = 0;
+        while (true) {
+            if (i < n && line.charAt(i) == '"') {
+                StringBuilder field = new StringBuilder();
+                i++;
+                while (i < n) {
+                    char c = line.charAt(i++);
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < n && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                fields.add(field.toString());
+            } else {
+                int end = line.indexOf(',', i);
+                if (end < 0 || end > n) {
+                    end = n;
+                }
+                fields.add(end == i ? null : line.substring(i, end));
+                i = end;
+            }
+            if (i >= n) {
+                return fields;
+            }
+            i++;
+        }
+    }
+
+    private static String toHexColor(Box box) {
+        Color color = box.getBoxColor() != null ? box.getBoxColor() : new Color(240, 240, 240);
+        return String.format("#%02X%02X%02X", color.getRed(), color.getGreen(), color.getBlue());
+    }
+
+    /**
+     * Writes CSV rows to a COPY ... FROM STDIN, a chunk at a time. Strings
+     * are always quoted, so only null becomes NULL.
+     */
+    private static final class CsvCopyWriter {
+        private final CopyIn copy;
+        private final StringBuilder buffer = new StringBuilder(COPY_CHUNK_CHARS + 1024);
+
+        CsvCopyWriter(CopyManager copyManager, String sql) throws SQLException {
+            this.copy = copyManager.copyIn(sql);
+        }
+
+        void row(Object... fields) throws SQLException {
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                Object field = fields[i];
+                if (field instanceof String) {
+                    buffer.append('"').append(((String) field).replace("\"", "\"\"")).append('"');
+                } else if (field != null) {
+                    buffer.append(field);
+                }
+            }
+            buffer.append('\n');
+            if (buffer.length() >= COPY_CHUNK_CHARS) {
+                flush();
+            }
+        }
+
+        // Returns the number of rows copied
+        long finish() throws SQLException {
+            flush();
+            return copy.endCopy();
+        }
+
+        // After a failure the connection has to leave COPY mode before rollback
+        void cancelIfActive() {
+            if (copy.isActive()) {
+                try {
+                    copy.cancelCopy();
+                } catch (SQLException e) {
+                    System.err.println("Error cancelling COPY: " + e.getMessage());
+                }
+            }
+        }
+
+        private void flush() throws SQLException {
+            if (buffer.length() > 0) {
+                byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+                copy.writeToCopy(bytes, 0, bytes.length);
+                buffer.setLength(0);
+            }
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package main.java.database;
 
+import main.java.board.Box;
 import java.sql.*;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -42,24 +43,17 @@ public class BoardDAO {
     /**
      * Retrieves board information
      */
-    public Map<String, Object> getBoardById(String boardId) {
-        String sql = "SELECT * FROM boards WHERE board_id = ?";
+    public BoardRow getBoardById(String boardId) {
+        String sql = "SELECT " + BoardRow.COLUMNS + " FROM boards WHERE board_id = ?";
 
         try (Connection conn = dbManager.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, boardId);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                Map<String, Object> board = new HashMap<>();
-                board.put("board_id", rs.getString("board_id"));
-                board.put("board_name", rs.getString("board_name"));
-                board.put("creator_email", rs.getString("creator_email"));
-                board.put("is_shared", rs.getBoolean("is_shared"));
-                board.put("created_at", rs.getTimestamp("created_at"));
-                board.put("updated_at", rs.getTimestamp("updated_at"));
-                return board;
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return BoardRow.from(rs);
+                }
             }
 
         } catch (SQLException e) {
@@ -72,31 +66,24 @@ public class BoardDAO {
     /**
      * Gets all boards accessible to a user
      */
-    public List<Map<String, Object>> getBoardsForUser(String userEmail, boolean includeShared) {
-        List<Map<String, Object>> boards = new ArrayList<>();
+    public List<BoardRow> getBoardsForUser(String userEmail, boolean includeShared) {
+        List<BoardRow> boards = new ArrayList<>();
         String sql;
 
         if (includeShared) {
-            sql = "SELECT * FROM boards WHERE creator_email = ? OR is_shared = TRUE ORDER BY updated_at DESC";
+            sql = "SELECT " + BoardRow.COLUMNS + " FROM boards WHERE creator_email = ? OR is_shared = TRUE ORDER BY updated_at DESC";
         } else {
-            sql = "SELECT * FROM boards WHERE creator_email = ? ORDER BY updated_at DESC";
+            sql = "SELECT " + BoardRow.COLUMNS + " FROM boards WHERE creator_email = ? ORDER BY updated_at DESC";
         }
 
         try (Connection conn = dbManager.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, userEmail);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                Map<String, Object> board = new HashMap<>();
-                board.put("board_id", rs.getString("board_id"));
-                board.put("board_name", rs.getString("board_name"));
-                board.put("creator_email", rs.getString("creator_email"));
-                board.put("is_shared", rs.getBoolean("is_shared"));
-                board.put("created_at", rs.getTimestamp("created_at"));
-                board.put("updated_at", rs.getTimestamp("updated_at"));
-                boards.add(board);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    boards.add(BoardRow.from(rs));
+                }
             }
 
         } catch (SQLException e) {
@@ -106,6 +93,41 @@ public class BoardDAO {
         return boards;
     }
 
+    /**
+     * One page of getBoardsForUser, newest first. Pass the last row of the
+     * previous page as after (null for the first page); a page shorter than
+     * limit is the last one.
+     */
+    public List<BoardRow> getBoardsForUserPage(String userEmail, boolean includeShared, BoardRow after, int limit) {
+        List<BoardRow> boards = new ArrayList<>(limit);
+        String filter = includeShared ? "(creator_email = ? OR is_shared = TRUE)" : "creator_email = ?";
+        String sql = "SELECT " + BoardRow.COLUMNS + " FROM boards WHERE " + filter
+                + (after != null ? " AND (updated_at, board_id) < (?, ?)" : "")
+                + " ORDER BY updated_at DESC, board_id DESC LIMIT ?";
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            stmt.setString(index++, userEmail);
+            if (after != null) {
+                stmt.setTimestamp(index++, after.updatedAt());
+                stmt.setString(index++, after.boardId());
+            }
+            stmt.setInt(index, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    boards.add(BoardRow.from(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error retrieving boards page for user: " + e.getMessage());
+        }
+
+        return boards;
+    }
+
     /**
      * Updates board information
      */
@@ -151,23 +173,16 @@ public class BoardDAO {
     /**
      * Gets all shared boards
      */
-    public List<Map<String, Object>> getSharedBoards() {
-        List<Map<String, Object>> boards = new ArrayList<>();
-        String sql = "SELECT * FROM boards WHERE is_shared = TRUE ORDER BY updated_at DESC";
+    public List<BoardRow> getSharedBoards() {
+        List<BoardRow> boards = new ArrayList<>();
+        String sql = "SELECT " + BoardRow.COLUMNS + " FROM boards WHERE is_shared = TRUE ORDER BY updated_at DESC";
 
         try (Connection conn = dbManager.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql);
                 ResultSet rs = stmt.executeQuery()) {
 
             while (rs.next()) {
-                Map<String, Object> board = new HashMap<>();
-                board.put("board_id", rs.getString("board_id"));
-                board.put("board_name", rs.getString("board_name"));
-                board.put("creator_email", rs.getString("creator_email"));
-                board.put("is_shared", rs.getBoolean("is_shared"));
-                board.put("created_at", rs.getTimestamp("created_at"));
-                board.put("updated_at", rs.getTimestamp("updated_at"));
-                boards.add(board);
+                boards.add(BoardRow.from(rs));
             }
 
         } catch (SQLException e) {
@@ -177,6 +192,236 @@ public class BoardDAO {
         return boards;
     }
 
+    /**
+     * One page of getSharedBoards, newest first. Pass the last row of the
+     * previous page as after (null for the first page).
+     */
+    public List<BoardRow> getSharedBoardsPage(BoardRow after, int limit) {
+        List<BoardRow> boards = new ArrayList<>(limit);
+        String sql = "SELECT " + BoardRow.COLUMNS + " FROM boards WHERE is_shared = TRUE"
+                + (after != null ? " AND (updated_at, board_id) < (?, ?)" : "")
+                + " ORDER BY updated_at DESC, board_id DESC LIMIT ?";
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            if (after != null) {
+                stmt.setTimestamp(index++, after.updatedAt());
+                stmt.setString(index++, after.boardId());
+            }
+            stmt.setInt(index, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    boards.add(BoardRow.from(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error retrieving shared boards page: " + e.getMessage());
+        }
+
+        return boards;
+    }
+
+    /**
+     * Returns the board's current version, or -1 if it doesn't exist
+     */
+    public long getBoardVersion(String boardId) {
+        String sql = "SELECT version FROM boards WHERE board_id = ?";
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, boardId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getLong(1);
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error reading board version: " + e.getMessage());
+        }
+
+        return -1;
+    }
+
+    /**
+     * Rows written and deleted on a board after sinceVersion (0 for
+     * everything), read from one snapshot so the returned version matches
+     * them. Returns null if the board doesn't exist or the read failed.
+     */
+    public BoardChanges getChangesSince(String boardId, long sinceVersion) {
+        String versionSql = "SELECT version FROM boards WHERE board_id = ?";
+        String boxesSql = "SELECT " + BoxRow.COLUMNS + " FROM boxes WHERE board_id = ? AND version > ? ORDER BY version";
+        String connectionsSql = "SELECT " + ConnectionRow.COLUMNS
+                + " FROM box_connections WHERE board_id = ? AND version > ? ORDER BY version";
+        String tombstonesSql = "SELECT " + BoardChanges.Tombstone.COLUMNS
+                + " FROM board_tombstones WHERE board_id = ? AND version > ? ORDER BY version";
+
+        try (Connection conn = dbManager.getConnection()) {
+            conn.setAutoCommit(false);
+            conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            try {
+                long version;
+                try (PreparedStatement stmt = conn.prepareStatement(versionSql)) {
+                    stmt.setString(1, boardId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (!rs.next()) {
+                            return null;
+                        }
+                        version = rs.getLong(1);
+                    }
+                }
+
+                List<BoxRow> boxes = new ArrayList<>();
+                try (PreparedStatement stmt = conn.prepareStatement(boxesSql)) {
+                    stmt.setString(1, boardId);
+                    stmt.setLong(2, sinceVersion);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            boxes.add(BoxRow.from(rs));
+                        }
+                    }
+                }
+
+                List<ConnectionRow> connections = new ArrayList<>();
+                try (PreparedStatement stmt = conn.prepareStatement(connectionsSql)) {
+                    stmt.setString(1, boardId);
+                    stmt.setLong(2, sinceVersion);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            connections.add(ConnectionRow.from(rs));
+                        }
+                    }
+                }
+
+                List<BoardChanges.Tombstone> deleted = new ArrayList<>();
+                try (PreparedStatement stmt = conn.prepareStatement(tombstonesSql)) {
+                    stmt.setString(1, boardId);
+                    stmt.setLong(2, sinceVersion);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            deleted.add(BoardChanges.Tombstone.from(rs));
+                        }
+                    }
+                }
+
+                conn.commit();
+                return new BoardChanges(boardId, version, boxes, connections, deleted);
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+                conn.setAutoCommit(true);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error reading board changes: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Copies a board with all its boxes and connections to a new board id in
+     * one transaction, without the rows leaving the database. The copy is
+     * created by creatorEmail and keeps the source's sharing; boxes get fresh
+     * ids and connections are remapped to them. Returns false if the source
+     * doesn't exist, the new id is taken, or the copy failed.
+     */
+    public boolean cloneBoard(String sourceBoardId, String newBoardId, String newBoardName, String creatorEmail) {
+        String boardSql = "INSERT INTO boards (board_id, board_name, creator_email, is_shared) SELECT ?, ?, ?, is_shared FROM boards WHERE board_id = ?";
+        // Stamp every copied row with one version of the new board, as a bulk import does
+        String versionSql = "SELECT thinklink_next_board_version(?)";
+        String bulkSql = "SELECT set_config('thinklink.bulk_board', ?, true), set_config('thinklink.bulk_version', ?, true)";
+        // New ids are drawn in src, in load order, so both inserts can remap by
+        // joining on the old id; the connection foreign keys are checked at
+        // the end of the statement, after the boxes are in
+        String copySql = """
+                    WITH src AS MATERIALIZED (
+                        SELECT box_id AS old_id, nextval(pg_get_serial_sequence('boxes', 'box_id'))::int AS new_id,
+                            title, content, position_x, position_y, width, height, color
+                        FROM boxes WHERE board_id = ?
+                        ORDER BY created_at, box_id
+                    ), copied_boxes AS (
+                        INSERT INTO boxes (box_id, board_id, title, content, position_x, position_y, width, height, color)
+                        SELECT new_id, ?, title, content, position_x, position_y, width, height, color FROM src
+                        RETURNING box_id
+                    ), copied_connections AS (
+                        INSERT INTO box_connections (board_id, source_box_id, target_box_id)
+                        SELECT ?, s.new_id, t.new_id
+                        FROM box_connections bc
+                        JOIN src s ON s.old_id = bc.source_box_id
+                        JOIN src t ON t.old_id = bc.target_box_id
+                        WHERE bc.board_id = ?
+                        RETURNING connection_id
+                    )
+                    SELECT (SELECT count(*) FROM copied_boxes), (SELECT count(*) FROM copied_connections)
+                """;
+
+        try (Connection conn = dbManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement stmt = conn.prepareStatement(boardSql)) {
+                    stmt.setString(1, newBoardId);
+                    stmt.setString(2, newBoardName);
+                    stmt.setString(3, creatorEmail);
+                    stmt.setString(4, sourceBoardId);
+                    if (stmt.executeUpdate() == 0) {
+                        conn.rollback();
+                        System.err.println("Error cloning board: " + sourceBoardId + " does not exist");
+                        return false;
+                    }
+                }
+                long version;
+                try (PreparedStatement stmt = conn.prepareStatement(versionSql)) {
+                    stmt.setString(1, newBoardId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        rs.next();
+                        version = rs.getLong(1);
+                    }
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(bulkSql)) {
+                    stmt.setString(1, newBoardId);
+                    stmt.setString(2, Long.toString(version));
+                    stmt.executeQuery().close();
+                }
+
+                long boxCount;
+                long connectionCount;
+                try (PreparedStatement stmt = conn.prepareStatement(copySql)) {
+                    stmt.setString(1, sourceBoardId);
+                    stmt.setString(2, newBoardId);
+                    stmt.setString(3, newBoardId);
+                    stmt.setString(4, sourceBoardId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        rs.next();
+                        boxCount = rs.getLong(1);
+                        connectionCount = rs.getLong(2);
+                    }
+                }
+
+                conn.commit();
+                System.out.println("BoardDAO: Cloned " + sourceBoardId + " to " + newBoardId + " with " + boxCount
+                        + " boxes and " + connectionCount + " connections");
+                return true;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error cloning board: " + e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * Updates board's last modified timestamp
      */
@@ -196,4 +441,294 @@ public class BoardDAO {
             return false;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Writes the dirty boxes of a board in one transaction on one connection,
+     * each with the narrowest statement for what changed: new boxes are
+     * upserted, text/colour edits rewrite the row, pure moves and resizes only
+     * touch their columns, and changed connections are replaced set-based.
+     * Only the snapshots are read, never the live boxes, so this can run on
+     * any thread.
+     *
+     * Returns the ids generated for new boxes, in the order of writes (0 for
+     * every write that kept its id), or null if nothing was saved. A new box
+     * whose id is taken by another board gets a generated one. Pass them to
+     * BoxWrite.applySaved on the thread that owns the boxes.
+     *
+     * With a boardName the board row is upserted; without one it is only touched.
+     */
+    public int[] saveDirtyBoxes(String boardId, String boardName, String creatorEmail, List<BoxWrite> writes) {
+        String boardSql = "INSERT INTO boards (board_id, board_name, creator_email, is_shared) VALUES (?, ?, ?, TRUE) ON CONFLICT (board_id) DO UPDATE SET board_name = EXCLUDED.board_name, updated_at = CURRENT_TIMESTAMP";
+        String touchSql = "UPDATE boards SET updated_at = CURRENT_TIMESTAMP WHERE board_id = ?";
+        // One board version per save, as a bulk import does, instead of the
+        // version triggers bumping the boards row once per written row
+        String versionSql = "SELECT thinklink_next_board_version(?)";
+        String bulkSql = "SELECT set_config('thinklink.bulk_board', ?, true), set_config('thinklink.bulk_version', ?, true)";
+        // New boxes with an id: updated if already on this board, otherwise
+        // inserted; if the id belongs to another board nothing is inserted
+        // here and the box goes through insertSql for a fresh id. No ON
+        // CONFLICT, as box_id alone isn't unique-indexed when boxes is
+        // partitioned.
+        String explicitInsertSql = """
+                    INSERT INTO boxes (box_id, board_id, title, content, position_x, position_y, width, height, color)
+                    SELECT ?, ?, ?, ?, ?, ?, ?, ?, ?
+                    WHERE NOT EXISTS (SELECT 1 FROM boxes WHERE box_id = ?)
+                """;
+        String insertSql = "INSERT INTO boxes (board_id, title, content, position_x, position_y, width, height, color) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        // Explicit ids bypass the SERIAL sequence, so move it past them (never backwards)
+        String sequenceSql = "SELECT setval(pg_get_serial_sequence('boxes', 'box_id'), GREATEST(MAX(box_id), nextval(pg_get_serial_sequence('boxes', 'box_id')))) FROM boxes";
+        // board_id in every filter lets a partitioned boxes table prune to one partition
+        String updateSql = "UPDATE boxes SET title = ?, content = ?, position_x = ?, position_y = ?, width = ?, height = ?, color = ?, updated_at = CURRENT_TIMESTAMP WHERE board_id = ? AND box_id = ?";
+        String positionSql = "UPDATE boxes SET position_x = ?, position_y = ?, updated_at = CURRENT_TIMESTAMP WHERE board_id = ? AND box_id = ?";
+        String sizeSql = "UPDATE boxes SET width = ?, height = ?, updated_at = CURRENT_TIMESTAMP WHERE board_id = ? AND box_id = ?";
+        // Only connections that are gone, so unchanged ones keep their version
+        String deleteConnectionsSql = """
+                    DELETE FROM box_connections bc
+                    WHERE bc.board_id = ? AND bc.source_box_id = ANY (?)
+                    AND NOT EXISTS (SELECT 1 FROM unnest(?::int[], ?::int[]) AS c(source_box_id, target_box_id)
+                                    WHERE c.source_box_id = bc.source_box_id AND c.target_box_id = bc.target_box_id)
+                """;
+        // Skips connections whose boxes were not written to this board
+        String insertConnectionsSql = """
+                    INSERT INTO box_connections (board_id, source_box_id, target_box_id)
+                    SELECT s.board_id, c.source_box_id, c.target_box_id
+                    FROM unnest(?::int[], ?::int[]) AS c(source_box_id, target_box_id)
+                    JOIN boxes s ON s.box_id = c.source_box_id AND s.board_id = ?
+                    JOIN boxes t ON t.box_id = c.target_box_id AND t.board_id = s.board_id
+                    ON CONFLICT (board_id, source_box_id, target_box_id) DO NOTHING
+                """;
+
+        List<BoxWrite> upserts = new ArrayList<>();
+        List<BoxWrite> inserts = new ArrayList<>();
+        List<BoxWrite> fullUpdates = new ArrayList<>();
+        List<BoxWrite> moves = new ArrayList<>();
+        List<BoxWrite> resizes = new ArrayList<>();
+        List<BoxWrite> connectionChanges = new ArrayList<>();
+        boolean anyDirty = false;
+        for (BoxWrite write : writes) {
+            int dirty = write.fields();
+            if (dirty == 0) {
+                continue;
+            }
+            anyDirty = true;
+            if (write.isInsert()) {
+                (write.boxId() > 0 ? upserts : inserts).add(write);
+            } else if ((dirty & (Box.DIRTY_TEXT | Box.DIRTY_COLOR)) != 0) {
+                fullUpdates.add(write);
+            } else {
+                if ((dirty & Box.DIRTY_POSITION) != 0) {
+                    moves.add(write);
+                }
+                if ((dirty & Box.DIRTY_SIZE) != 0) {
+                    resizes.add(write);
+                }
+            }
+            if ((dirty & (Box.DIRTY_CONNECTIONS | Box.DIRTY_NEW)) != 0) {
+                connectionChanges.add(write);
+            }
+        }
+        int[] newIds = new int[writes.size()];
+        if (!anyDirty && boardName == null) {
+            return newIds;
+        }
+        // Ids generated by the insert below, by identity of the write
+        Map<BoxWrite, Integer> generatedIds = new IdentityHashMap<>();
+
+        try (Connection conn = dbManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                if (boardName != null) {
+                    try (PreparedStatement stmt = conn.prepareStatement(boardSql)) {
+                        stmt.setString(1, boardId);
+                        stmt.setString(2, boardName);
+                        stmt.setString(3, creatorEmail);
+                        stmt.executeUpdate();
+                    }
+                } else {
+                    try (PreparedStatement stmt = conn.prepareStatement(touchSql)) {
+                        stmt.setString(1, boardId);
+                        stmt.executeUpdate();
+                    }
+                }
+                if (anyDirty) {
+                    long version;
+                    try (PreparedStatement stmt = conn.prepareStatement(versionSql)) {
+                        stmt.setString(1, boardId);
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            rs.next();
+                            version = rs.getLong(1);
+                        }
+                    }
+                    // 0 if the board row doesn't exist; the triggers then
+                    // stamp rows with version 1 as before
+                    if (version > 0) {
+                        try (PreparedStatement stmt = conn.prepareStatement(bulkSql)) {
+                            stmt.setString(1, boardId);
+                            stmt.setString(2, Long.toString(version));
+                            stmt.executeQuery().close();
+                        }
+                    }
+                }
+
+                if (!upserts.isEmpty()) {
+                    List<BoxWrite> missing = new ArrayList<>();
+                    try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+                        for (BoxWrite box : upserts) {
+                            setUpdateColumns(stmt, boardId, box);
+                            stmt.addBatch();
+                        }
+                        int[] counts = stmt.executeBatch();
+                        for (int i = 0; i < counts.length; i++) {
+                            if (counts[i] == 0) {
+                                missing.add(upserts.get(i));
+                            }
+                        }
+                    }
+                    if (!missing.isEmpty()) {
+                        try (PreparedStatement stmt = conn.prepareStatement(explicitInsertSql)) {
+                            for (BoxWrite box : missing) {
+                                stmt.setInt(1, box.boxId());
+                                setBoxColumns(stmt, 2, boardId, box);
+                                stmt.setInt(10, box.boxId());
+                                stmt.addBatch();
+                            }
+                            int[] counts = stmt.executeBatch();
+                            // The id belongs to another board: insert with a
+                            // generated id instead and report that back
+                            for (int i = 0; i < counts.length; i++) {
+                                if (counts[i] == 0) {
+                                    inserts.add(missing.get(i));
+                                }
+                            }
+                        }
+                        try (PreparedStatement stmt = conn.prepareStatement(sequenceSql)) {
+                            stmt.executeQuery().close();
+                        }
+                    }
+                }
+
+                if (!inserts.isEmpty()) {
+                    try (PreparedStatement stmt = conn.prepareStatement(insertSql, new String[] { "box_id" })) {
+                        for (BoxWrite box : inserts) {
+                            setBoxColumns(stmt, 1, boardId, box);
+                            stmt.addBatch();
+                        }
+                        stmt.executeBatch();
+                        try (ResultSet keys = stmt.getGeneratedKeys()) {
+                            for (int i = 0; i < inserts.size() && keys.next(); i++) {
+                                generatedIds.put(inserts.get(i), keys.getInt(1));
+                            }
+                        }
+                    }
+                }
+
+                if (!fullUpdates.isEmpty()) {
+                    try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+                        for (BoxWrite box : fullUpdates) {
+                            setUpdateColumns(stmt, boardId, box);
+                            stmt.addBatch();
+                        }
+                        stmt.executeBatch();
+                    }
+                }
+
+                if (!moves.isEmpty()) {
+                    try (PreparedStatement stmt = conn.prepareStatement(positionSql)) {
+                        for (BoxWrite box : moves) {
+                            stmt.setInt(1, box.x());
+                            stmt.setInt(2, box.y());
+                            stmt.setString(3, boardId);
+                            stmt.setInt(4, box.boxId());
+                            stmt.addBatch();
+                        }
+                        stmt.executeBatch();
+                    }
+                }
+
+                if (!resizes.isEmpty()) {
+                    try (PreparedStatement stmt = conn.prepareStatement(sizeSql)) {
+                        for (BoxWrite box : resizes) {
+                            stmt.setInt(1, box.width());
+                            stmt.setInt(2, box.height());
+                            stmt.setString(3, boardId);
+                            stmt.setInt(4, box.boxId());
+                            stmt.addBatch();
+                        }
+                        stmt.executeBatch();
+                    }
+                }
+
+                if (!connectionChanges.isEmpty()) {
+                    Integer[] sourceBoxIds = new Integer[connectionChanges.size()];
+                    List<Integer> sourceIds = new ArrayList<>();
+                    List<Integer> targetIds = new ArrayList<>();
+                    for (int i = 0; i < connectionChanges.size(); i++) {
+                        BoxWrite box = connectionChanges.get(i);
+                        int boxId = generatedIds.getOrDefault(box, box.boxId());
+                        sourceBoxIds[i] = boxId;
+                        for (Integer targetId : box.connectedBoxIds()) {
+                            sourceIds.add(boxId);
+                            targetIds.add(targetId);
+                        }
+                    }
+                    try (PreparedStatement stmt = conn.prepareStatement(deleteConnectionsSql)) {
+                        stmt.setString(1, boardId);
+                        stmt.setArray(2, conn.createArrayOf("integer", sourceBoxIds));
+                        stmt.setArray(3, conn.createArrayOf("integer", sourceIds.toArray()));
+                        stmt.setArray(4, conn.createArrayOf("integer", targetIds.toArray()));
+                        stmt.executeUpdate();
+                    }
+                    if (!sourceIds.isEmpty()) {
+                        try (PreparedStatement stmt = conn.prepareStatement(insertConnectionsSql)) {
+                            stmt.setArray(1, conn.createArrayOf("integer", sourceIds.toArray()));
+                            stmt.setArray(2, conn.createArrayOf("integer", targetIds.toArray()));
+                            stmt.setString(3, boardId);
+                            stmt.executeUpdate();
+                        }
+                    }
+                }
+
+                conn.commit();
+                for (int i = 0; i < newIds.length; i++) {
+                    newIds[i] = generatedIds.getOrDefault(writes.get(i), 0);
+                }
+                return newIds;
+
+            } catch (SQLException | RuntimeException e) {
+                // Roll back before setAutoCommit(true) would commit the partial work
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error saving board changes: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void setBoxColumns(PreparedStatement stmt, int firstIndex, String boardId, BoxWrite box)
+            throws SQLException {
+        stmt.setString(firstIndex, boardId);
+        stmt.setString(firstIndex + 1, box.title());
+        stmt.setString(firstIndex + 2, box.content());
+        stmt.setInt(firstIndex + 3, box.x());
+        stmt.setInt(firstIndex + 4, box.y());
+        stmt.setInt(firstIndex + 5, box.width());
+        stmt.setInt(firstIndex + 6, box.height());
+        stmt.setString(firstIndex + 7, box.color());
+    }
+
+    private static void setUpdateColumns(PreparedStatement stmt, String boardId, BoxWrite box) throws SQLException {
+        stmt.setString(1, box.title());
+        stmt.setString(2, box.content());
+        stmt.setInt(3, box.x());
+        stmt.setInt(4, box.y());
+        stmt.setInt(5, box.width());
+        stmt.setInt(6, box.height());
+        stmt.setString(7, box.color());
+        stmt.setString(8, boardId);
+        stmt.setInt(9, box.boxId());
+    }
+}
@@ -0,0 +1,20 @@
+package main.java.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * One row of the boards table
+ */
+public record BoardRow(String boardId, String boardName, String creatorEmail, boolean shared,
+        Timestamp createdAt, Timestamp updatedAt, long version) {
+
+    // Column list matching from(); keep the two in sync
+    static final String COLUMNS = "board_id, board_name, creator_email, is_shared, created_at, updated_at, version";
+
+    static BoardRow from(ResultSet rs) throws SQLException {
+        return new BoardRow(rs.getString(1), rs.getString(2), rs.getString(3), rs.getBoolean(4),
+                rs.getTimestamp(5), rs.getTimestamp(6), rs.getLong(7));
+    }
+}
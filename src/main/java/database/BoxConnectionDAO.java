@@ -2,9 +2,7 @@ package main.java.database;
 
 import java.sql.*;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Data Access Object for Box Connection operations
@@ -17,16 +15,18 @@ public class BoxConnectionDAO {
     }
 
     /**
-     * Creates a connection between two boxes
+     * Creates a connection between two boxes of a board; nothing is written
+     * unless both boxes are on it
      */
-    public boolean createConnection(int sourceBoxId, int targetBoxId) {
-        String sql = "INSERT INTO box_connections (source_box_id, target_box_id) VALUES (?, ?) ON CONFLICT (source_box_id, target_box_id) DO NOTHING";
+    public boolean createConnection(String boardId, int sourceBoxId, int targetBoxId) {
+        String sql = "INSERT INTO box_connections (board_id, source_box_id, target_box_id) SELECT s.board_id, s.box_id, t.box_id FROM boxes s JOIN boxes t ON t.board_id = s.board_id AND t.box_id = ? WHERE s.board_id = ? AND s.box_id = ? ON CONFLICT (board_id, source_box_id, target_box_id) DO NOTHING";
 
         try (Connection conn = dbManager.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setInt(1, sourceBoxId);
-            stmt.setInt(2, targetBoxId);
+            stmt.setInt(1, targetBoxId);
+            stmt.setString(2, boardId);
+            stmt.setInt(3, sourceBoxId);
 
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0;
@@ -40,14 +40,15 @@ public class BoxConnectionDAO {
     /**
      * Removes a connection between two boxes
      */
-    public boolean removeConnection(int sourceBoxId, int targetBoxId) {
-        String sql = "DELETE FROM box_connections WHERE source_box_id = ? AND target_box_id = ?";
+    public boolean removeConnection(String boardId, int sourceBoxId, int targetBoxId) {
+        String sql = "DELETE FROM box_connections WHERE board_id = ? AND source_box_id = ? AND target_box_id = ?";
 
         try (Connection conn = dbManager.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setInt(1, sourceBoxId);
-            stmt.setInt(2, targetBoxId);
+            stmt.setString(1, boardId);
+            stmt.setInt(2, sourceBoxId);
+            stmt.setInt(3, targetBoxId);
 
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0;
@@ -58,17 +59,41 @@ public class BoxConnectionDAO {
         }
     }
 
+    /**
+     * Removes a connection only if it is still at expectedVersion. API for
+     * sync clients that track row versions from getChangesSince; nothing in
+     * the application calls it yet.
+     */
+    public boolean removeConnection(String boardId, int sourceBoxId, int targetBoxId, long expectedVersion) {
+        String sql = "DELETE FROM box_connections WHERE board_id = ? AND source_box_id = ? AND target_box_id = ? AND version = ?";
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, boardId);
+            stmt.setInt(2, sourceBoxId);
+            stmt.setInt(3, targetBoxId);
+            stmt.setLong(4, expectedVersion);
+            return stmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            System.err.println("Error removing box connection: " + e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * Gets all connections for a specific box (outgoing connections)
      */
-    public List<Integer> getConnectionsForBox(int boxId) {
+    public List<Integer> getConnectionsForBox(String boardId, int boxId) {
         List<Integer> connections = new ArrayList<>();
-        String sql = "SELECT target_box_id FROM box_connections WHERE source_box_id = ?";
+        String sql = "SELECT target_box_id FROM box_connections WHERE board_id = ? AND source_box_id = ?";
 
         try (Connection conn = dbManager.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setInt(1, boxId);
+            stmt.setString(1, boardId);
+            stmt.setInt(2, boxId);
             ResultSet rs = stmt.executeQuery();
 
             while (rs.next()) {
@@ -85,14 +110,15 @@ public class BoxConnectionDAO {
     /**
      * Gets all incoming connections for a specific box
      */
-    public List<Integer> getIncomingConnectionsForBox(int boxId) {
+    public List<Integer> getIncomingConnectionsForBox(String boardId, int boxId) {
         List<Integer> connections = new ArrayList<>();
-        String sql = "SELECT source_box_id FROM box_connections WHERE target_box_id = ?";
+        String sql = "SELECT source_box_id FROM box_connections WHERE board_id = ? AND target_box_id = ?";
 
         try (Connection conn = dbManager.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setInt(1, boxId);
+            stmt.setString(1, boardId);
+            stmt.setInt(2, boxId);
             ResultSet rs = stmt.executeQuery();
 
             while (rs.next()) {
@@ -107,31 +133,20 @@ public class BoxConnectionDAO {
     }
 
     /**
-     * Gets all connections for boxes in a specific board
+     * Gets all connections for boxes in a specific board, one index range scan
      */
-    public List<Map<String, Object>> getConnectionsForBoard(String boardId) {
-        List<Map<String, Object>> connections = new ArrayList<>();
-        String sql = """
-                    SELECT bc.source_box_id, bc.target_box_id, bc.created_at
-                    FROM box_connections bc
-                    JOIN boxes b1 ON bc.source_box_id = b1.box_id
-                    JOIN boxes b2 ON bc.target_box_id = b2.box_id
-                    WHERE b1.board_id = ? AND b2.board_id = ?
-                """;
+    public List<ConnectionRow> getConnectionsForBoard(String boardId) {
+        List<ConnectionRow> connections = new ArrayList<>();
+        String sql = "SELECT " + ConnectionRow.COLUMNS + " FROM box_connections WHERE board_id = ?";
 
         try (Connection conn = dbManager.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, boardId);
-            stmt.setString(2, boardId);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                Map<String, Object> connection = new HashMap<>();
-                connection.put("source_box_id", rs.getInt("source_box_id"));
-                connection.put("target_box_id", rs.getInt("target_box_id"));
-                connection.put("created_at", rs.getTimestamp("created_at"));
-                connections.add(connection);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    connections.add(ConnectionRow.from(rs));
+                }
             }
 
         } catch (SQLException e) {
@@ -144,14 +159,15 @@ public class BoxConnectionDAO {
     /**
      * Removes all connections for a specific box
      */
-    public boolean removeAllConnectionsForBox(int boxId) {
-        String sql = "DELETE FROM box_connections WHERE source_box_id = ? OR target_box_id = ?";
+    public boolean removeAllConnectionsForBox(String boardId, int boxId) {
+        String sql = "DELETE FROM box_connections WHERE board_id = ? AND (source_box_id = ? OR target_box_id = ?)";
 
         try (Connection conn = dbManager.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setInt(1, boxId);
+            stmt.setString(1, boardId);
             stmt.setInt(2, boxId);
+            stmt.setInt(3, boxId);
 
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected >= 0; // Return true even if no connections were removed
@@ -165,14 +181,15 @@ public class BoxConnectionDAO {
     /**
      * Checks if a connection exists between two boxes
      */
-    public boolean connectionExists(int sourceBoxId, int targetBoxId) {
-        String sql = "SELECT 1 FROM box_connections WHERE source_box_id = ? AND target_box_id = ?";
+    public boolean connectionExists(String boardId, int sourceBoxId, int targetBoxId) {
+        String sql = "SELECT 1 FROM box_connections WHERE board_id = ? AND source_box_id = ? AND target_box_id = ?";
 
         try (Connection conn = dbManager.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setInt(1, sourceBoxId);
-            stmt.setInt(2, targetBoxId);
+            stmt.setString(1, boardId);
+            stmt.setInt(2, sourceBoxId);
+            stmt.setInt(3, targetBoxId);
             ResultSet rs = stmt.executeQuery();
 
             return rs.next();
@@ -186,25 +203,27 @@ public class BoxConnectionDAO {
     /**
      * Updates all connections for a box (replaces existing connections)
      */
-    public boolean updateConnectionsForBox(int boxId, List<Integer> newConnections) {
+    public boolean updateConnectionsForBox(String boardId, int boxId, List<Integer> newConnections) {
         try (Connection conn = dbManager.getConnection()) {
             conn.setAutoCommit(false);
 
             try {
                 // Remove existing connections
-                String deleteSQL = "DELETE FROM box_connections WHERE source_box_id = ?";
+                String deleteSQL = "DELETE FROM box_connections WHERE board_id = ? AND source_box_id = ?";
                 try (PreparedStatement deleteStmt = conn.prepareStatement(deleteSQL)) {
-                    deleteStmt.setInt(1, boxId);
+                    deleteStmt.setString(1, boardId);
+                    deleteStmt.setInt(2, boxId);
                     deleteStmt.executeUpdate();
                 }
 
                 // Add new connections
                 if (!newConnections.isEmpty()) {
-                    String insertSQL = "INSERT INTO box_connections (source_box_id, target_box_id) VALUES (?, ?)";
+                    String insertSQL = "INSERT INTO box_connections (board_id, source_box_id, target_box_id) SELECT s.board_id, s.box_id, t.box_id FROM boxes s JOIN boxes t ON t.board_id = s.board_id AND t.box_id = ? WHERE s.board_id = ? AND s.box_id = ?";
                     try (PreparedStatement insertStmt = conn.prepareStatement(insertSQL)) {
                         for (Integer targetId : newConnections) {
-                            insertStmt.setInt(1, boxId);
-                            insertStmt.setInt(2, targetId);
+                            insertStmt.setInt(1, targetId);
+                            insertStmt.setString(2, boardId);
+                            insertStmt.setInt(3, boxId);
                             insertStmt.addBatch();
                         }
                         insertStmt.executeBatch();
@@ -3,14 +3,15 @@ package main.java.database;
 import main.java.board.Box;
 import java.sql.*;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Data Access Object for Box operations
  */
 public class BoxDAO {
+    private static final int LOAD_FETCH_SIZE = 500;
+
     private final DatabaseConnectionManager dbManager;
 
     public BoxDAO() {
@@ -58,11 +59,11 @@ public class BoxDAO {
     }
 
     /**
-     * Updates an existing box
+     * Updates an existing box of a board
      */
-    public boolean updateBox(int boxId, String title, String content, int x, int y, int width, int height,
-            String color) {
-        String sql = "UPDATE boxes SET title = ?, content = ?, position_x = ?, position_y = ?, width = ?, height = ?, color = ?, updated_at = CURRENT_TIMESTAMP WHERE box_id = ?";
+    public boolean updateBox(String boardId, int boxId, String title, String content, int x, int y, int width,
+            int height, String color) {
+        String sql = "UPDATE boxes SET title = ?, content = ?, position_x = ?, position_y = ?, width = ?, height = ?, color = ?, updated_at = CURRENT_TIMESTAMP WHERE board_id = ? AND box_id = ?";
 
         try (Connection conn = dbManager.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -74,7 +75,8 @@ public class BoxDAO {
             stmt.setInt(5, width);
             stmt.setInt(6, height);
             stmt.setString(7, color);
-            stmt.setInt(8, boxId);
+            stmt.setString(8, boardId);
+            stmt.setInt(9, boxId);
 
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0;
@@ -85,41 +87,65 @@ public class BoxDAO {
         }
     }
 
+    /**
+     * Updates a box only if it is still at expectedVersion, i.e. nobody changed
+     * it since it was read. Returns the box's new version, or -1 if it was
+     * changed or deleted meanwhile (or the update failed).
+     *
+     * API for sync clients that track row versions from getChangesSince; the
+     * Swing boards save through BoardDAO.saveDirtyBoxes and don't use it.
+     */
+    public long updateBox(String boardId, int boxId, String title, String content, int x, int y, int width,
+            int height, String color, long expectedVersion) {
+        String sql = "UPDATE boxes SET title = ?, content = ?, position_x = ?, position_y = ?, width = ?, height = ?, color = ?, updated_at = CURRENT_TIMESTAMP WHERE board_id = ? AND box_id = ? AND version = ? RETURNING version";
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, title);
+            stmt.setString(2, content);
+            stmt.setInt(3, x);
+            stmt.setInt(4, y);
+            stmt.setInt(5, width);
+            stmt.setInt(6, height);
+            stmt.setString(7, color);
+            stmt.setString(8, boardId);
+            stmt.setInt(9, boxId);
+            stmt.setLong(10, expectedVersion);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : -1;
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error updating box: " + e.getMessage());
+            return -1;
+        }
+    }
+
     /**
      * Updates a box from a Box object
      */
-    public boolean updateBox(Box box) {
-        return updateBox(box.getId(), box.getTitle(), box.getContent(),
+    public boolean updateBox(String boardId, Box box) {
+        return updateBox(boardId, box.getId(), box.getTitle(), box.getContent(),
                 box.getBoxX(), box.getBoxY(), box.getBoxWidth(),
                 box.getBoxHeight(), "#F0F0F0");
     }
 
     /**
-     * Retrieves a box by ID
+     * Retrieves a box of a board by ID
      */
-    public Map<String, Object> getBoxById(int boxId) {
-        String sql = "SELECT * FROM boxes WHERE box_id = ?";
+    public BoxRow getBoxById(String boardId, int boxId) {
+        String sql = "SELECT " + BoxRow.COLUMNS + " FROM boxes WHERE board_id = ? AND box_id = ?";
 
         try (Connection conn = dbManager.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setInt(1, boxId);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                Map<String, Object> box = new HashMap<>();
-                box.put("box_id", rs.getInt("box_id"));
-                box.put("board_id", rs.getString("board_id"));
-                box.put("title", rs.getString("title"));
-                box.put("content", rs.getString("content"));
-                box.put("position_x", rs.getInt("position_x"));
-                box.put("position_y", rs.getInt("position_y"));
-                box.put("width", rs.getInt("width"));
-                box.put("height", rs.getInt("height"));
-                box.put("color", rs.getString("color"));
-                box.put("created_at", rs.getTimestamp("created_at"));
-                box.put("updated_at", rs.getTimestamp("updated_at"));
-                return box;
+            stmt.setString(1, boardId);
+            stmt.setInt(2, boxId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return BoxRow.from(rs);
+                }
             }
 
         } catch (SQLException e) {
@@ -132,30 +158,18 @@ public class BoxDAO {
     /**
      * Gets all boxes for a specific board
      */
-    public List<Map<String, Object>> getBoxesForBoard(String boardId) {
-        List<Map<String, Object>> boxes = new ArrayList<>();
-        String sql = "SELECT * FROM boxes WHERE board_id = ? ORDER BY created_at";
+    public List<BoxRow> getBoxesForBoard(String boardId) {
+        List<BoxRow> boxes = new ArrayList<>();
+        String sql = "SELECT " + BoxRow.COLUMNS + " FROM boxes WHERE board_id = ? ORDER BY created_at";
 
         try (Connection conn = dbManager.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, boardId);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                Map<String, Object> box = new HashMap<>();
-                box.put("box_id", rs.getInt("box_id"));
-                box.put("board_id", rs.getString("board_id"));
-                box.put("title", rs.getString("title"));
-                box.put("content", rs.getString("content"));
-                box.put("position_x", rs.getInt("position_x"));
-                box.put("position_y", rs.getInt("position_y"));
-                box.put("width", rs.getInt("width"));
-                box.put("height", rs.getInt("height"));
-                box.put("color", rs.getString("color"));
-                box.put("created_at", rs.getTimestamp("created_at"));
-                box.put("updated_at", rs.getTimestamp("updated_at"));
-                boxes.add(box);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    boxes.add(BoxRow.from(rs));
+                }
             }
 
         } catch (SQLException e) {
@@ -166,18 +180,84 @@ public class BoxDAO {
     }
 
     /**
-     * Deletes a box and all its connections
+     * Loads every box of a board together with its outgoing connections in a
+     * single query, streamed in batches of LOAD_FETCH_SIZE rows
+     */
+    public List<Box> getBoxesWithConnectionsForBoard(String boardId) {
+        List<Box> boxes = new ArrayList<>();
+        String sql = """
+                    SELECT b.box_id, b.title, b.content, b.position_x, b.position_y, b.width, b.height,
+                        COALESCE(array_agg(bc.target_box_id ORDER BY bc.connection_id)
+                            FILTER (WHERE bc.target_box_id IS NOT NULL), '{}') AS target_ids
+                    FROM boxes b
+                    LEFT JOIN box_connections bc ON bc.board_id = b.board_id AND bc.source_box_id = b.box_id
+                    WHERE b.board_id = ?
+                    GROUP BY b.board_id, b.box_id
+                    ORDER BY b.created_at, b.box_id
+                """;
+
+        try (Connection conn = dbManager.getConnection()) {
+            // pgjdbc only honours the fetch size inside a transaction
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setFetchSize(LOAD_FETCH_SIZE);
+                stmt.setString(1, boardId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        Box box = new Box(rs.getInt(4), rs.getInt(5), rs.getString(2), rs.getString(3), rs.getInt(1));
+                        box.setBoxSize(rs.getInt(7), rs.getInt(6));
+                        Integer[] targetIds = (Integer[]) rs.getArray(8).getArray();
+                        box.setConnectedBoxIds(Arrays.asList(targetIds));
+                        box.markClean();
+                        boxes.add(box);
+                    }
+                }
+                conn.commit();
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error loading boxes with connections for board: " + e.getMessage());
+        }
+
+        return boxes;
+    }
+
+    /**
+     * Deletes a box and all its connections. With board_id in the filter a
+     * partitioned boxes table only looks in that board's partition.
      */
-    public boolean deleteBox(int boxId) {
-        String sql = "DELETE FROM boxes WHERE box_id = ?";
+    public boolean deleteBox(String boardId, int boxId) {
+        String sql = "DELETE FROM boxes WHERE board_id = ? AND box_id = ?";
 
         try (Connection conn = dbManager.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setInt(1, boxId);
+            stmt.setString(1, boardId);
+            stmt.setInt(2, boxId);
+            return stmt.executeUpdate() > 0;
 
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+        } catch (SQLException e) {
+            System.err.println("Error deleting box: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Deletes a box only if it is still at expectedVersion. API for sync
+     * clients, like the guarded updateBox.
+     */
+    public boolean deleteBox(String boardId, int boxId, long expectedVersion) {
+        String sql = "DELETE FROM boxes WHERE board_id = ? AND box_id = ? AND version = ?";
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, boardId);
+            stmt.setInt(2, boxId);
+            stmt.setLong(3, expectedVersion);
+            return stmt.executeUpdate() > 0;
 
         } catch (SQLException e) {
             System.err.println("Error deleting box: " + e.getMessage());
@@ -188,15 +268,16 @@ public class BoxDAO {
     /**
      * Updates only the position of a box
      */
-    public boolean updateBoxPosition(int boxId, int x, int y) {
-        String sql = "UPDATE boxes SET position_x = ?, position_y = ?, updated_at = CURRENT_TIMESTAMP WHERE box_id = ?";
+    public boolean updateBoxPosition(String boardId, int boxId, int x, int y) {
+        String sql = "UPDATE boxes SET position_x = ?, position_y = ?, updated_at = CURRENT_TIMESTAMP WHERE board_id = ? AND box_id = ?";
 
         try (Connection conn = dbManager.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, x);
             stmt.setInt(2, y);
-            stmt.setInt(3, boxId);
+            stmt.setString(3, boardId);
+            stmt.setInt(4, boxId);
 
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0;
@@ -207,18 +288,45 @@ public class BoxDAO {
         }
     }
 
+    /**
+     * Moves a box only if it is still at expectedVersion. Returns the new
+     * version, or -1 on a conflict. API for sync clients, like the guarded
+     * updateBox.
+     */
+    public long updateBoxPosition(String boardId, int boxId, int x, int y, long expectedVersion) {
+        String sql = "UPDATE boxes SET position_x = ?, position_y = ?, updated_at = CURRENT_TIMESTAMP WHERE board_id = ? AND box_id = ? AND version = ? RETURNING version";
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, x);
+            stmt.setInt(2, y);
+            stmt.setString(3, boardId);
+            stmt.setInt(4, boxId);
+            stmt.setLong(5, expectedVersion);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : -1;
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error updating box position: " + e.getMessage());
+            return -1;
+        }
+    }
+
     /**
      * Updates only the size of a box
      */
-    public boolean updateBoxSize(int boxId, int width, int height) {
-        String sql = "UPDATE boxes SET width = ?, height = ?, updated_at = CURRENT_TIMESTAMP WHERE box_id = ?";
+    public boolean updateBoxSize(String boardId, int boxId, int width, int height) {
+        String sql = "UPDATE boxes SET width = ?, height = ?, updated_at = CURRENT_TIMESTAMP WHERE board_id = ? AND box_id = ?";
 
         try (Connection conn = dbManager.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, width);
             stmt.setInt(2, height);
-            stmt.setInt(3, boxId);
+            stmt.setString(3, boardId);
+            stmt.setInt(4, boxId);
 
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0;
@@ -232,19 +340,7 @@ public class BoxDAO {
     /**
      * Converts database row to Box object
      */
-    public Box mapToBox(Map<String, Object> boxData) {
-        if (boxData == null)
-            return null;
-
-        int x = (Integer) boxData.get("position_x");
-        int y = (Integer) boxData.get("position_y");
-        String title = (String) boxData.get("title");
-        String content = (String) boxData.get("content");
-        int id = (Integer) boxData.get("box_id");
-
-        Box box = new Box(x, y, title, content, id);
-        box.setBoxSize((Integer) boxData.get("height"), (Integer) boxData.get("width"));
-
-        return box;
+    public Box mapToBox(BoxRow row) {
+        return row == null ? null : row.toBox();
     }
-}
\ No newline at end of file
+}
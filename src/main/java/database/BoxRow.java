@@ -0,0 +1,33 @@
+package main.java.database;
+
+import main.java.board.Box;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * One row of the boxes table
+ */
+public record BoxRow(int boxId, String boardId, String title, String content, int x, int y, int width,
+        int height, String color, Timestamp createdAt, Timestamp updatedAt, long version) {
+
+    // Column list matching from(); keep the two in sync
+    static final String COLUMNS = "box_id, board_id, title, content, position_x, position_y, width, height, color, created_at, updated_at, version";
+
+    static BoxRow from(ResultSet rs) throws SQLException {
+        return new BoxRow(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getInt(5),
+                rs.getInt(6), rs.getInt(7), rs.getInt(8), rs.getString(9), rs.getTimestamp(10), rs.getTimestamp(11),
+                rs.getLong(12));
+    }
+
+    /**
+     * Builds a clean (not dirty) Box from this row
+     */
+    public Box toBox() {
+        Box box = new Box(x, y, title, content, boxId);
+        box.setBoxSize(height, width);
+        box.markClean();
+        return box;
+    }
+}
@@ -0,0 +1,92 @@
+package main.java.database;
+
+import main.java.board.Box;
+import main.java.board.BoxList;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The state of one box to save, copied on the thread that owns the Box (the
+ * EDT for a board panel) so a background writer never reads the live object.
+ * fields are the Box.DIRTY_* bits to write. box is only kept to report the
+ * outcome back to its owner through applySaved.
+ */
+public record BoxWrite(Box box, int boxId, int fields, String title, String content, int x, int y, int width,
+        int height, String color, List<Integer> connectedBoxIds) {
+
+    /**
+     * Snapshot of a box with its current dirty fields
+     */
+    public static BoxWrite of(Box box) {
+        return of(box, box.getDirtyFields());
+    }
+
+    public static BoxWrite of(Box box, int fields) {
+        return new BoxWrite(box, box.getId(), fields, box.getTitle(), box.getContent(), box.getBoxX(),
+                box.getBoxY(), box.getBoxWidth(), box.getBoxHeight(), toHexColor(box.getBoxColor()),
+                List.copyOf(box.getConnectedBoxIds()));
+    }
+
+    /**
+     * Snapshots of every dirty box on a board
+     */
+    public static List<BoxWrite> dirtyOf(BoxList boxList) {
+        List<BoxWrite> writes = new ArrayList<>();
+        for (Box box = boxList.getFirstNode(); box != null; box = box.getNext()) {
+            if (box.isDirty()) {
+                writes.add(of(box));
+            }
+        }
+        return writes;
+    }
+
+    /**
+     * This write's state with the fields still owed by an older write of the
+     * same box
+     */
+    BoxWrite mergedWith(BoxWrite older) {
+        return new BoxWrite(box, boxId, fields | older.fields, title, content, x, y, width, height, color,
+                connectedBoxIds);
+    }
+
+    /**
+     * This write for a box that was inserted with the given id after the
+     * snapshot was taken: an update of that row rather than another insert
+     */
+    BoxWrite withId(int id) {
+        return new BoxWrite(box, id, fields & ~Box.DIRTY_NEW, title, content, x, y, width, height, color,
+                connectedBoxIds);
+    }
+
+    boolean isInsert() {
+        return (fields & Box.DIRTY_NEW) != 0;
+    }
+
+    /**
+     * Records a successful save on the live Box: clears the written fields and
+     * sets the id generated for a new box (if newId > 0). Call it on the
+     * thread that owns the box.
+     */
+    public void applySaved(int newId) {
+        if (newId > 0) {
+            box.setId(newId);
+        }
+        box.clearDirty(fields);
+    }
+
+    /**
+     * applySaved for each write, with the ids returned by saveDirtyBoxes
+     */
+    public static void applySaved(List<BoxWrite> writes, int[] newIds) {
+        for (int i = 0; i < writes.size(); i++) {
+            writes.get(i).applySaved(newIds[i]);
+        }
+    }
+
+    private static String toHexColor(Color color) {
+        Color c = color != null ? color : new Color(240, 240, 240);
+        return String.format("#%02X%02X%02X", c.getRed(), c.getGreen(), c.getBlue());
+    }
+}
@@ -0,0 +1,237 @@
+package main.java.database;
+
+import main.java.board.Box;
+import main.java.metrics.MetricsRegistry;
+
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background writer for box edits so the UI thread never waits on JDBC.
+ * Pending writes are kept per board and coalesced by box id: editing a box
+ * ten times between flushes costs one write. Every flush interval each board's
+ * pending boxes are saved in one transaction through BoardDAO.saveDirtyBoxes.
+ * Failed flushes are put back and retried with backoff, up to MAX_ATTEMPTS.
+ *
+ * Boxes are snapshotted into BoxWrites when queued, so the writer thread never
+ * touches a live Box; saved fields and new ids go back to the boxes on the EDT.
+ */
+public class BoxWriteQueue {
+    private static final MetricsRegistry.Counter WRITES = MetricsRegistry.getInstance().counter(
+            "thinklink_db_write_queue_total", "Queued box writes by outcome", "result");
+    private static final MetricsRegistry.Histogram FLUSH_TIME = MetricsRegistry.getInstance().histogram(
+            "thinklink_db_write_queue_flush_seconds", "Time to write one board's pending boxes", null);
+
+    private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 200;
+    private static final long MAX_BACKOFF_MILLIS = 10_000;
+    private static final int MAX_ATTEMPTS = 5;
+    // How long the JVM shutdown hook waits for the last flush
+    private static final long SHUTDOWN_DRAIN_MILLIS = 3_000;
+
+    private static BoxWriteQueue instance;
+
+    private final BoardDAO boardDAO;
+    private final long flushIntervalMillis;
+    // boardId -> (box key -> pending write), guarded by this
+    private final Map<String, Map<Object, PendingWrite>> pending = new LinkedHashMap<>();
+    // Ids generated for queued new boxes, until the EDT has set them on the
+    // Box; a later snapshot still with its old id (or none) must update that
+    // row, not insert another. Guarded by this.
+    private final Map<Box, Integer> assignedIds = new WeakHashMap<>();
+    private final ScheduledExecutorService flusher;
+    private int pendingCount;
+    private int failedAttempts;
+    private long retryAtMillis;
+
+    private BoxWriteQueue(BoardDAO boardDAO, long flushIntervalMillis) {
+        this.boardDAO = boardDAO;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "thinklink-db-write-queue");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushDue, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> drain(SHUTDOWN_DRAIN_MILLIS),
+                "thinklink-db-write-queue-drain"));
+        MetricsRegistry.getInstance().gauge("thinklink_db_write_queue_pending",
+                "Box writes waiting to be flushed", this::getPendingCount);
+    }
+
+    public static synchronized BoxWriteQueue getInstance() {
+        if (instance == null) {
+            instance = new BoxWriteQueue(new BoardDAO(), DEFAULT_FLUSH_INTERVAL_MILLIS);
+        }
+        return instance;
+    }
+
+    /**
+     * Queues the box's dirty fields for the next flush. Call it on the thread
+     * that owns the box: its state is copied here. A box already waiting is
+     * coalesced with this write instead of being written twice.
+     */
+    public void enqueue(Box box, String boardId) {
+        if (!box.isDirty()) {
+            return;
+        }
+        BoxWrite write = BoxWrite.of(box);
+        synchronized (this) {
+            merge(boardId, new PendingWrite(write));
+        }
+    }
+
+    private void merge(String boardId, PendingWrite write) {
+        Map<Object, PendingWrite> boardWrites = pending.computeIfAbsent(boardId, k -> new LinkedHashMap<>());
+        PendingWrite existing = boardWrites.get(keyOf(write.write));
+        if (existing == null) {
+            boardWrites.put(keyOf(write.write), write);
+            pendingCount++;
+            WRITES.inc("queued");
+        } else {
+            // The newest snapshot wins, the fields still owed are kept
+            existing.write = write.write.mergedWith(existing.write);
+            WRITES.inc("coalesced");
+        }
+    }
+
+    // Boxes without a database id yet can only be matched by identity
+    private static Object keyOf(BoxWrite write) {
+        return write.boxId() > 0 ? Integer.valueOf(write.boxId()) : write.box();
+    }
+
+    /**
+     * Number of boxes waiting to be written
+     */
+    public synchronized int getPendingCount() {
+        return pendingCount;
+    }
+
+    private void flushDue() {
+        // Hold writes while the database is known to be down instead of
+        // spending their attempts; they go out once the circuit closes
+        if (DatabaseCircuitBreaker.getInstance().isOpen()) {
+            return;
+        }
+        synchronized (this) {
+            if (failedAttempts > 0 && System.currentTimeMillis() < retryAtMillis) {
+                return;
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Writes everything pending now, one transaction per board. Returns false
+     * if any board failed and was put back for a retry.
+     */
+    boolean flush() {
+        Map<String, Map<Object, PendingWrite>> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return true;
+            }
+            batch = new LinkedHashMap<>(pending);
+            pending.clear();
+            pendingCount = 0;
+        }
+
+        boolean allSaved = true;
+        for (Map.Entry<String, Map<Object, PendingWrite>> entry : batch.entrySet()) {
+            List<BoxWrite> writes = new ArrayList<>(entry.getValue().size());
+            synchronized (this) {
+                for (PendingWrite pendingWrite : entry.getValue().values()) {
+                    BoxWrite write = pendingWrite.write;
+                    Integer assignedId = assignedIds.get(write.box());
+                    if (assignedId != null && assignedId != write.boxId()) {
+                        write = write.withId(assignedId);
+                        pendingWrite.write = write;
+                    }
+                    writes.add(write);
+                }
+            }
+            long start = System.nanoTime();
+            int[] newIds;
+            try {
+                newIds = boardDAO.saveDirtyBoxes(entry.getKey(), null, null, writes);
+            } catch (RuntimeException e) {
+                System.err.println("BoxWriteQueue: Error writing board " + entry.getKey() + ": " + e.getMessage());
+                newIds = null;
+            }
+            FLUSH_TIME.observeSince(null, start);
+            if (newIds != null) {
+                WRITES.add("written", writes.size());
+                synchronized (this) {
+                    for (int i = 0; i < newIds.length; i++) {
+                        if (newIds[i] > 0) {
+                            assignedIds.put(writes.get(i).box(), newIds[i]);
+                        }
+                    }
+                }
+                int[] ids = newIds;
+                SwingUtilities.invokeLater(() -> BoxWrite.applySaved(writes, ids));
+            } else {
+                allSaved = false;
+                requeue(entry.getKey(), entry.getValue());
+            }
+        }
+        synchronized (this) {
+            if (allSaved) {
+                failedAttempts = 0;
+            } else {
+                failedAttempts++;
+                long backoff = Math.min(MAX_BACKOFF_MILLIS, flushIntervalMillis << Math.min(failedAttempts, 16));
+                retryAtMillis = System.currentTimeMillis() + backoff;
+            }
+        }
+        return allSaved;
+    }
+
+    private synchronized void requeue(String boardId, Map<Object, PendingWrite> failed) {
+        for (PendingWrite write : failed.values()) {
+            if (++write.attempts >= MAX_ATTEMPTS) {
+                WRITES.inc("dropped");
+                System.err.println("BoxWriteQueue: Giving up on box " + write.write.boxId() + " of board " + boardId
+                        + " after " + write.attempts + " attempts");
+                continue;
+            }
+            WRITES.inc("retried");
+            Map<Object, PendingWrite> boardWrites = pending.computeIfAbsent(boardId, k -> new LinkedHashMap<>());
+            PendingWrite newer = boardWrites.get(keyOf(write.write));
+            if (newer == null) {
+                boardWrites.put(keyOf(write.write), write);
+                pendingCount++;
+            } else {
+                newer.write = newer.write.mergedWith(write.write);
+                newer.attempts = Math.max(newer.attempts, write.attempts);
+            }
+        }
+    }
+
+    /**
+     * Flushes what is pending on the writer thread, waiting at most timeoutMillis
+     */
+    public void drain(long timeoutMillis) {
+        try {
+            flusher.submit(this::flush).get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            System.err.println("BoxWriteQueue: Could not drain " + getPendingCount() + " pending writes: " + e);
+        }
+    }
+
+    private static class PendingWrite {
+        BoxWrite write;
+        int attempts;
+
+        PendingWrite(BoxWrite write) {
+            this.write = write;
+        }
+    }
+}
@@ -10,6 +10,10 @@ import java.util.Map;
  * Data Access Object for Checklist operations
  */
 public class ChecklistDAO {
+    // Spacing between consecutive position_order values, so an item can be
+    // moved between two others by updating only its own row
+    static final int POSITION_GAP = 1024;
+
     private final DatabaseConnectionManager dbManager;
 
     public ChecklistDAO() {
@@ -17,7 +21,9 @@ public class ChecklistDAO {
     }
 
     /**
-     * Saves a checklist with its items
+     * Saves a checklist with its items. Items carrying an "itemId" are updated
+     * in place, the rest are inserted, and stored items missing from the list
+     * are deleted; positions follow list order.
      */
     public boolean saveChecklist(String userEmail, String title, List<Map<String, Object>> items) {
         try (Connection conn = dbManager.getConnection()) {
@@ -31,47 +37,53 @@ public class ChecklistDAO {
                 try (PreparedStatement stmt = conn.prepareStatement(checklistSQL)) {
                     stmt.setString(1, userEmail);
                     stmt.setString(2, title);
-                    ResultSet rs = stmt.executeQuery();
-
-                    if (rs.next()) {
-                        checklistId = rs.getInt("checklist_id");
-                    } else {
-                        // If it was an update, get the existing ID
-                        String getIdSQL = "SELECT checklist_id FROM checklists WHERE user_email = ? AND title = ?";
-                        try (PreparedStatement getIdStmt = conn.prepareStatement(getIdSQL)) {
-                            getIdStmt.setString(1, userEmail);
-                            getIdStmt.setString(2, title);
-                            ResultSet idRS = getIdStmt.executeQuery();
-                            if (idRS.next()) {
-                                checklistId = idRS.getInt("checklist_id");
-                            } else {
-                                throw new SQLException("Failed to get checklist ID");
-                            }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (!rs.next()) {
+                            throw new SQLException("Failed to get checklist ID");
                         }
+                        checklistId = rs.getInt("checklist_id");
                     }
                 }
 
-                // Clear existing items
-                String clearSQL = "DELETE FROM checklist_items WHERE checklist_id = ?";
-                try (PreparedStatement clearStmt = conn.prepareStatement(clearSQL)) {
-                    clearStmt.setInt(1, checklistId);
-                    clearStmt.executeUpdate();
+                List<Integer> keptIds = new ArrayList<>();
+                for (Map<String, Object> item : items) {
+                    if (item.get("itemId") instanceof Integer) {
+                        keptIds.add((Integer) item.get("itemId"));
+                    }
+                }
+
+                // Drop only the items no longer in the list
+                String deleteSQL = "DELETE FROM checklist_items WHERE checklist_id = ? AND NOT (item_id = ANY (?))";
+                try (PreparedStatement deleteStmt = conn.prepareStatement(deleteSQL)) {
+                    deleteStmt.setInt(1, checklistId);
+                    deleteStmt.setArray(2, conn.createArrayOf("integer", keptIds.toArray()));
+                    deleteStmt.executeUpdate();
                 }
 
-                // Insert new items
-                if (!items.isEmpty()) {
-                    String itemSQL = "INSERT INTO checklist_items (checklist_id, text, is_completed, position_order) VALUES (?, ?, ?, ?)";
-                    try (PreparedStatement itemStmt = conn.prepareStatement(itemSQL)) {
-                        for (int i = 0; i < items.size(); i++) {
-                            Map<String, Object> item = items.get(i);
-                            itemStmt.setInt(1, checklistId);
-                            itemStmt.setString(2, (String) item.get("text"));
-                            itemStmt.setBoolean(3, (Boolean) item.get("completed"));
-                            itemStmt.setInt(4, i);
-                            itemStmt.addBatch();
+                String updateSQL = "UPDATE checklist_items SET text = ?, is_completed = ?, position_order = ? WHERE item_id = ? AND checklist_id = ?";
+                String insertSQL = "INSERT INTO checklist_items (checklist_id, text, is_completed, position_order) VALUES (?, ?, ?, ?)";
+                try (PreparedStatement updateStmt = conn.prepareStatement(updateSQL);
+                        PreparedStatement insertStmt = conn.prepareStatement(insertSQL)) {
+                    for (int i = 0; i < items.size(); i++) {
+                        Map<String, Object> item = items.get(i);
+                        int position = (i + 1) * POSITION_GAP;
+                        if (item.get("itemId") instanceof Integer) {
+                            updateStmt.setString(1, (String) item.get("text"));
+                            updateStmt.setBoolean(2, (Boolean) item.get("completed"));
+                            updateStmt.setInt(3, position);
+                            updateStmt.setInt(4, (Integer) item.get("itemId"));
+                            updateStmt.setInt(5, checklistId);
+                            updateStmt.addBatch();
+                        } else {
+                            insertStmt.setInt(1, checklistId);
+                            insertStmt.setString(2, (String) item.get("text"));
+                            insertStmt.setBoolean(3, (Boolean) item.get("completed"));
+                            insertStmt.setInt(4, position);
+                            insertStmt.addBatch();
                         }
-                        itemStmt.executeBatch();
                     }
+                    updateStmt.executeBatch();
+                    insertStmt.executeBatch();
                 }
 
                 conn.commit();
@@ -95,11 +107,11 @@ public class ChecklistDAO {
      */
     public Map<String, Object> loadChecklist(String userEmail, String title) {
         String sql = """
-                    SELECT c.title, ci.text, ci.is_completed
+                    SELECT c.title, ci.item_id, ci.text, ci.is_completed
                     FROM checklists c
                     LEFT JOIN checklist_items ci ON c.checklist_id = ci.checklist_id
                     WHERE c.user_email = ? AND c.title = ?
-                    ORDER BY ci.position_order
+                    ORDER BY ci.position_order, ci.item_id
                 """;
 
         try (Connection conn = dbManager.getConnection();
@@ -121,6 +133,7 @@ public class ChecklistDAO {
                 String itemText = rs.getString("text");
                 if (itemText != null) {
                     Map<String, Object> item = new HashMap<>();
+                    item.put("itemId", rs.getInt("item_id"));
                     item.put("text", itemText);
                     item.put("completed", rs.getBoolean("is_completed"));
                     items.add(item);
@@ -140,6 +153,238 @@ public class ChecklistDAO {
         return null;
     }
 
+    /**
+     * Returns the id of the user's checklist with this title, creating it if
+     * needed, or -1 on failure
+     */
+    public int getOrCreateChecklistId(String userEmail, String title) {
+        String sql = "INSERT INTO checklists (user_email, title) VALUES (?, ?) ON CONFLICT (user_email, title) DO UPDATE SET title = EXCLUDED.title RETURNING checklist_id";
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, userEmail);
+            stmt.setString(2, title);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error getting checklist id: " + e.getMessage());
+        }
+
+        return -1;
+    }
+
+    /**
+     * Gets the items of a checklist in display order
+     */
+    public List<ChecklistItemRow> getItems(int checklistId) {
+        List<ChecklistItemRow> items = new ArrayList<>();
+        String sql = "SELECT " + ChecklistItemRow.COLUMNS
+                + " FROM checklist_items WHERE checklist_id = ? ORDER BY position_order, item_id";
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, checklistId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    items.add(ChecklistItemRow.from(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error loading checklist items: " + e.getMessage());
+        }
+
+        return items;
+    }
+
+    /**
+     * Appends an item to the end of a checklist, returns its item_id or -1
+     */
+    public int insertItem(int checklistId, String text, boolean completed) {
+        String sql = """
+                    INSERT INTO checklist_items (checklist_id, text, is_completed, position_order)
+                    SELECT ?, ?, ?, COALESCE(MAX(position_order), 0) + ?
+                    FROM checklist_items WHERE checklist_id = ?
+                    RETURNING item_id
+                """;
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, checklistId);
+            stmt.setString(2, text);
+            stmt.setBoolean(3, completed);
+            stmt.setInt(4, POSITION_GAP);
+            stmt.setInt(5, checklistId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error inserting checklist item: " + e.getMessage());
+        }
+
+        return -1;
+    }
+
+    /**
+     * Updates the text and completion of one item of the given checklist
+     */
+    public boolean updateItem(int checklistId, int itemId, String text, boolean completed) {
+        String sql = "UPDATE checklist_items SET text = ?, is_completed = ? WHERE item_id = ? AND checklist_id = ?";
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, text);
+            stmt.setBoolean(2, completed);
+            stmt.setInt(3, itemId);
+            stmt.setInt(4, checklistId);
+            return stmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            System.err.println("Error updating checklist item: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Updates only the completion of one item of the given checklist
+     */
+    public boolean setItemCompleted(int checklistId, int itemId, boolean completed) {
+        String sql = "UPDATE checklist_items SET is_completed = ? WHERE item_id = ? AND checklist_id = ?";
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setBoolean(1, completed);
+            stmt.setInt(2, itemId);
+            stmt.setInt(3, checklistId);
+            return stmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            System.err.println("Error updating checklist item: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Deletes the given items of one checklist in one statement
+     */
+    public boolean deleteItems(int checklistId, List<Integer> itemIds) {
+        if (itemIds.isEmpty()) {
+            return true;
+        }
+        String sql = "DELETE FROM checklist_items WHERE item_id = ANY (?) AND checklist_id = ?";
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setArray(1, conn.createArrayOf("integer", itemIds.toArray()));
+            stmt.setInt(2, checklistId);
+            return stmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            System.err.println("Error deleting checklist items: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Moves an item to just after afterItemId (null moves it to the top). Only
+     * the moved row is written, unless its neighbours have no gap left, in
+     * which case the checklist is renumbered once first.
+     */
+    public boolean moveItem(int checklistId, int itemId, Integer afterItemId) {
+        try (Connection conn = dbManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                Integer position = positionBetweenNeighbours(conn, checklistId, itemId, afterItemId);
+                if (position == null) {
+                    renumberItems(conn, checklistId);
+                    position = positionBetweenNeighbours(conn, checklistId, itemId, afterItemId);
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "UPDATE checklist_items SET position_order = ? WHERE item_id = ? AND checklist_id = ?")) {
+                    stmt.setInt(1, position);
+                    stmt.setInt(2, itemId);
+                    stmt.setInt(3, checklistId);
+                    stmt.executeUpdate();
+                }
+                conn.commit();
+                return true;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error moving checklist item: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Midpoint between the item after which to place and the one following
+    // it (ignoring the moved item), or null if they are adjacent
+    private Integer positionBetweenNeighbours(Connection conn, int checklistId, int itemId, Integer afterItemId)
+            throws SQLException {
+        String sql = """
+                    SELECT a.position_order,
+                        (SELECT MIN(n.position_order) FROM checklist_items n
+                         WHERE n.checklist_id = ? AND n.item_id <> ?
+                           AND (a.position_order IS NULL OR n.position_order > a.position_order))
+                    FROM (SELECT (SELECT position_order FROM checklist_items WHERE item_id = ?) AS position_order) a
+                """;
+        Integer lower = null;
+        Integer upper = null;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, checklistId);
+            stmt.setInt(2, itemId);
+            if (afterItemId != null) {
+                stmt.setInt(3, afterItemId);
+            } else {
+                stmt.setNull(3, Types.INTEGER);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    lower = (Integer) rs.getObject(1);
+                    upper = (Integer) rs.getObject(2);
+                }
+            }
+        }
+        long low = lower != null ? lower : (upper != null ? (long) upper - 2 * POSITION_GAP : 0);
+        long high = upper != null ? upper : low + 2 * POSITION_GAP;
+        if (high - low < 2) {
+            return null;
+        }
+        return (int) (low + (high - low) / 2);
+    }
+
+    private void renumberItems(Connection conn, int checklistId) throws SQLException {
+        String sql = """
+                    UPDATE checklist_items ci SET position_order = r.rn * ?
+                    FROM (SELECT item_id, row_number() OVER (ORDER BY position_order, item_id) AS rn
+                          FROM checklist_items WHERE checklist_id = ?) r
+                    WHERE ci.item_id = r.item_id
+                """;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, POSITION_GAP);
+            stmt.setInt(2, checklistId);
+            stmt.executeUpdate();
+        }
+    }
+
     /**
      * Gets all checklist titles for a user
      */
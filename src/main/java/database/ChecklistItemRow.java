@@ -0,0 +1,17 @@
+package main.java.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * One row of the checklist_items table
+ */
+public record ChecklistItemRow(int itemId, String text, boolean completed, int position) {
+
+    // Column list matching from(); keep the two in sync
+    static final String COLUMNS = "item_id, text, is_completed, position_order";
+
+    static ChecklistItemRow from(ResultSet rs) throws SQLException {
+        return new ChecklistItemRow(rs.getInt(1), rs.getString(2), rs.getBoolean(3), rs.getInt(4));
+    }
+}
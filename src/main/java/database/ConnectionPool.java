@@ -0,0 +1,469 @@
+package main.java.database;
+
+import main.java.metrics.MetricsRegistry;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded pool of PostgreSQL connections. Borrowers get a proxy whose close()
+ * hands the physical connection back instead of closing it, so DAOs keep
+ * their try-with-resources pattern unchanged.
+ *
+ * Each connection keeps a StatementCache, so repeated prepareStatement calls
+ * with the same SQL reuse one server-side prepared statement.
+ *
+ * Idle connections are validated on borrow (unless they were returned very
+ * recently), evicted after idleTimeout or maxLifetime, and any connection
+ * held longer than leakDetectionThreshold is reported with the stack trace
+ * of the code that borrowed it.
+ */
+class ConnectionPool {
+    // Connections returned within this window skip the isValid() round trip
+    private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final long HOUSEKEEPING_PERIOD_MILLIS = 30_000;
+    private static final int STATEMENT_PRUNE_THRESHOLD = 64;
+
+    private static final MetricsRegistry.Histogram WAIT_TIME = MetricsRegistry.getInstance().histogram(
+            "thinklink_db_pool_wait_seconds", "Time spent waiting to borrow a pooled connection", null);
+    private static final MetricsRegistry.Counter EVENTS = MetricsRegistry.getInstance().counter(
+            "thinklink_db_pool_events_total", "Connection pool lifecycle events", "event");
+
+    /**
+     * Pool settings, read from the db.pool.* keys in database.properties
+     */
+    static class Config {
+        int minConnections = 5;
+        int maxConnections = 20;
+        long connectionTimeoutMillis = 30_000;
+        long idleTimeoutMillis = 600_000;
+        long maxLifetimeMillis = 1_800_000;
+        long leakDetectionThresholdMillis = 60_000;
+        int validationTimeoutSeconds = 5;
+        // Cached PreparedStatements per connection, 0 disables the cache
+        int statementCacheSize = 64;
+        // Executions before pgjdbc switches a statement to a named server-side one
+        int prepareThreshold = 1;
+    }
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final Config config;
+
+    // Most recently returned first, so busy periods reuse warm connections and
+    // the tail ages out during quiet ones
+    private final Deque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final Set<PooledConnection> active = ConcurrentHashMap.newKeySet();
+    // One permit per connection a borrower may hold; fair so waiters are served FIFO
+    private final Semaphore permits;
+    // Physical connections, idle + active + being opened
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private volatile boolean closed;
+    // Only keep minConnections warm once the database has been reachable
+    private volatile boolean databaseReachable;
+    private final ScheduledExecutorService housekeeper;
+
+    ConnectionPool(String url, String username, String password, Config config) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.config = config;
+        this.permits = new Semaphore(config.maxConnections, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "thinklink-db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, HOUSEKEEPING_PERIOD_MILLIS,
+                HOUSEKEEPING_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        registerGauges();
+    }
+
+    private void registerGauges() {
+        MetricsRegistry.getInstance().gauge("thinklink_db_pool_connections",
+                "Pooled database connections by state", "state", () -> {
+                    Map<String, Integer> states = new LinkedHashMap<>();
+                    states.put("active", active.size());
+                    states.put("idle", idle.size());
+                    states.put("pending", permits.getQueueLength());
+                    states.put("total", totalConnections.get());
+                    return states;
+                });
+    }
+
+    /**
+     * Borrows a connection, waiting up to connectionTimeout for one to free up
+     */
+    Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(config.connectionTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                EVENTS.inc("timeout");
+                WAIT_TIME.observeSince(null, start);
+                throw new SQLTimeoutException("Timed out after " + config.connectionTimeoutMillis
+                        + "ms waiting for a database connection (" + active.size() + " active, max "
+                        + config.maxConnections + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledConnection pooled = takeIdleOrOpen();
+            WAIT_TIME.observeSince(null, start);
+            return lease(pooled);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PooledConnection takeIdleOrOpen() throws SQLException {
+        while (true) {
+            PooledConnection pooled = idle.pollFirst();
+            if (pooled != null) {
+                if (isUsable(pooled)) {
+                    return pooled;
+                }
+                EVENTS.inc("validation_failed");
+                destroy(pooled);
+                continue;
+            }
+            if (reserveSlot(config.maxConnections)) {
+                return openConnection();
+            }
+            // Every slot is taken but one is mid-return, mid-destroy or being
+            // opened by the housekeeper; it will show up momentarily
+            LockSupport.parkNanos(50_000);
+        }
+    }
+
+    private boolean reserveSlot(int limit) {
+        while (true) {
+            int current = totalConnections.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (totalConnections.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private PooledConnection openConnection() throws SQLException {
+        try {
+            Properties props = new Properties();
+            props.setProperty("user", username);
+            props.setProperty("password", password);
+            props.setProperty("prepareThreshold", Integer.toString(config.prepareThreshold));
+            // Lets pgjdbc send batched INSERTs as multi-row statements
+            props.setProperty("reWriteBatchedInserts", "true");
+            Connection raw = DriverManager.getConnection(url, props);
+            PooledConnection pooled = new PooledConnection(raw,
+                    config.statementCacheSize > 0 ? new StatementCache(raw, config.statementCacheSize) : null);
+            databaseReachable = true;
+            EVENTS.inc("created");
+            return pooled;
+        } catch (SQLException | RuntimeException e) {
+            databaseReachable = false;
+            totalConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        long now = System.nanoTime();
+        if (now - pooled.createdAt > TimeUnit.MILLISECONDS.toNanos(config.maxLifetimeMillis)) {
+            return false;
+        }
+        if (now - pooled.lastReturnedAt < VALIDATION_BYPASS_NANOS) {
+            return true;
+        }
+        try {
+            return pooled.raw.isValid(config.validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection lease(PooledConnection pooled) {
+        pooled.borrowedAt = System.nanoTime();
+        pooled.borrowedBy = config.leakDetectionThresholdMillis > 0
+                ? new Throwable("Connection borrowed by thread " + Thread.currentThread().getName())
+                : null;
+        pooled.leakReported = false;
+        active.add(pooled);
+        return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new Lease(pooled));
+    }
+
+    private void release(PooledConnection pooled) {
+        active.remove(pooled);
+        if (pooled.leakReported) {
+            System.err.println("ConnectionPool: Previously reported leaked connection was returned after "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pooled.borrowedAt) + "ms");
+        }
+        try {
+            if (pooled.statements != null && pooled.statements.isConnectionBroken()) {
+                pooled.broken = true;
+            }
+            if (closed || pooled.broken || !resetState(pooled)) {
+                destroy(pooled);
+                return;
+            }
+            pooled.lastReturnedAt = System.nanoTime();
+            pooled.borrowedBy = null;
+            idle.addFirst(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Undoes anything a borrower left behind so the next one gets a clean connection
+     */
+    private boolean resetState(PooledConnection pooled) {
+        try {
+            if (pooled.raw.isClosed()) {
+                return false;
+            }
+            if (!pooled.raw.getAutoCommit()) {
+                pooled.raw.rollback();
+                pooled.raw.setAutoCommit(true);
+            }
+            if (pooled.raw.isReadOnly()) {
+                pooled.raw.setReadOnly(false);
+            }
+            pooled.raw.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            System.err.println("ConnectionPool: Discarding connection that could not be reset: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void destroy(PooledConnection pooled) {
+        closeQuietly(pooled);
+        EVENTS.inc("destroyed");
+        totalConnections.decrementAndGet();
+    }
+
+    private static void closeQuietly(PooledConnection pooled) {
+        if (pooled.statements != null) {
+            pooled.statements.close();
+        }
+        try {
+            pooled.raw.close();
+        } catch (SQLException e) {
+            System.err.println("ConnectionPool: Error closing connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Evicts idle and expired connections, reports leaks and tops the pool
+     * back up to minConnections
+     */
+    private void housekeep() {
+        try {
+            long now = System.nanoTime();
+            long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.idleTimeoutMillis);
+            long maxLifetimeNanos = TimeUnit.MILLISECONDS.toNanos(config.maxLifetimeMillis);
+            Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+            while (oldestFirst.hasNext()) {
+                PooledConnection pooled = oldestFirst.next();
+                boolean expired = now - pooled.createdAt > maxLifetimeNanos;
+                boolean idleTooLong = now - pooled.lastReturnedAt > idleTimeoutNanos
+                        && totalConnections.get() > config.minConnections;
+                // remove() fails if a borrower took it in the meantime
+                if ((expired || idleTooLong) && idle.remove(pooled)) {
+                    EVENTS.inc("evicted");
+                    destroy(pooled);
+                }
+            }
+
+            detectLeaks(now);
+            fillToMinimum();
+        } catch (Exception e) {
+            System.err.println("ConnectionPool: Housekeeping error: " + e.getMessage());
+        }
+    }
+
+    private void detectLeaks(long now) {
+        if (config.leakDetectionThresholdMillis <= 0) {
+            return;
+        }
+        long thresholdNanos = TimeUnit.MILLISECONDS.toNanos(config.leakDetectionThresholdMillis);
+        for (PooledConnection pooled : active) {
+            if (!pooled.leakReported && now - pooled.borrowedAt > thresholdNanos) {
+                pooled.leakReported = true;
+                EVENTS.inc("leak_suspected");
+                System.err.println("ConnectionPool: Possible connection leak, held for "
+                        + TimeUnit.NANOSECONDS.toMillis(now - pooled.borrowedAt) + "ms");
+                if (pooled.borrowedBy != null) {
+                    pooled.borrowedBy.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void fillToMinimum() {
+        while (databaseReachable && !closed && reserveSlot(config.minConnections)) {
+            PooledConnection pooled;
+            try {
+                pooled = openConnection();
+            } catch (SQLException e) {
+                return;
+            }
+            pooled.lastReturnedAt = System.nanoTime();
+            idle.addLast(pooled);
+        }
+    }
+
+    /**
+     * Closes idle connections now; active ones are closed as they are returned
+     */
+    void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    private static class PooledConnection {
+        final Connection raw;
+        final StatementCache statements;
+        final long createdAt = System.nanoTime();
+        volatile long lastReturnedAt = createdAt;
+        volatile long borrowedAt;
+        volatile Throwable borrowedBy;
+        volatile boolean leakReported;
+        volatile boolean broken;
+
+        PooledConnection(Connection raw, StatementCache statements) {
+            this.raw = raw;
+            this.statements = statements;
+        }
+    }
+
+    /**
+     * One borrow of a pooled connection. Closing it returns the connection to
+     * the pool and closes any statements the borrower left open.
+     */
+    private class Lease implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final List<Statement> openStatements = new ArrayList<>();
+        private boolean returned;
+
+        Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        closeStatements();
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || pooled.raw.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + pooled.raw;
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            try {
+                if (pooled.statements != null && method.getName().equals("prepareStatement")
+                        && args.length == 1) {
+                    Statement cached = pooled.statements.prepare((String) args[0]);
+                    trackStatement(cached);
+                    return cached;
+                }
+                Object result = method.invoke(pooled.raw, args);
+                if (result instanceof Statement) {
+                    trackStatement((Statement) result);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException && isConnectionError((SQLException) cause)) {
+                    pooled.broken = true;
+                }
+                throw cause;
+            } catch (SQLException e) {
+                if (isConnectionError(e)) {
+                    pooled.broken = true;
+                }
+                throw e;
+            }
+        }
+
+        private void trackStatement(Statement statement) throws SQLException {
+            if (openStatements.size() >= STATEMENT_PRUNE_THRESHOLD) {
+                Iterator<Statement> it = openStatements.iterator();
+                while (it.hasNext()) {
+                    if (it.next().isClosed()) {
+                        it.remove();
+                    }
+                }
+            }
+            openStatements.add(statement);
+        }
+
+        private void closeStatements() {
+            for (Statement statement : openStatements) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    pooled.broken = true;
+                }
+            }
+            openStatements.clear();
+        }
+    }
+
+    // SQLState class 08 is "connection exception"
+    static boolean isConnectionError(SQLException e) {
+        return e.getSQLState() != null && e.getSQLState().startsWith("08");
+    }
+}
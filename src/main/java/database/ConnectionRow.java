@@ -0,0 +1,18 @@
+package main.java.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * One row of the box_connections table
+ */
+public record ConnectionRow(int sourceBoxId, int targetBoxId, Timestamp createdAt, long version) {
+
+    // Column list matching from(); keep the two in sync
+    static final String COLUMNS = "source_box_id, target_box_id, created_at, version";
+
+    static ConnectionRow from(ResultSet rs) throws SQLException {
+        return new ConnectionRow(rs.getInt(1), rs.getInt(2), rs.getTimestamp(3), rs.getLong(4));
+    }
+}
@@ -0,0 +1,216 @@
+package main.java.database;
+
+import main.java.metrics.MetricsRegistry;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Keeps callers from waiting out a connect timeout on every call while the
+ * database is down. After FAILURE_THRESHOLD consecutive connection failures
+ * the circuit opens: getConnection fails fast and DatabaseSaveAndLoad uses the
+ * file backend, queuing its database writes here. A probe thread tries a
+ * connection every PROBE_INTERVAL_MILLIS; once one succeeds the circuit goes
+ * half-open: connections are allowed again for the replay of the queued
+ * writes, but callers keep using the file backend and queuing until the
+ * replay has finished, so a direct write can't be overwritten by an older
+ * replayed one. Then the circuit closes.
+ */
+public class DatabaseCircuitBreaker {
+    private static final MetricsRegistry.Counter EVENTS = MetricsRegistry.getInstance().counter(
+            "thinklink_db_circuit_total", "Database circuit breaker events", "event");
+
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long PROBE_INTERVAL_MILLIS = 5_000;
+    // Oldest queued writes are dropped beyond this; the file copy remains
+    private static final int MAX_REPLAY_WRITES = 500;
+
+    private static DatabaseCircuitBreaker instance;
+
+    private volatile boolean open;
+    // Half-open: the database is back and the queued writes are replaying
+    private volatile boolean replaying;
+    // Guarded by this
+    private int consecutiveFailures;
+    private final Map<String, Supplier<Boolean>> replay = new LinkedHashMap<>();
+    private ScheduledExecutorService prober;
+
+    private DatabaseCircuitBreaker() {
+        MetricsRegistry.getInstance().gauge("thinklink_db_circuit_open",
+                "1 while database calls are short-circuited to the file backend", () -> isOpen() ? 1 : 0);
+        MetricsRegistry.getInstance().gauge("thinklink_db_circuit_replay_pending",
+                "Database writes waiting for the circuit to close", this::getReplayCount);
+    }
+
+    public static synchronized DatabaseCircuitBreaker getInstance() {
+        if (instance == null) {
+            instance = new DatabaseCircuitBreaker();
+        }
+        return instance;
+    }
+
+    /**
+     * True while callers should use the file backend and queue their
+     * database writes, including while the queued writes replay
+     */
+    public boolean isOpen() {
+        return open || replaying;
+    }
+
+    /**
+     * True while getConnection should fail fast. Unlike isOpen this is false
+     * during the replay, which needs connections.
+     */
+    boolean rejectsConnections() {
+        return open;
+    }
+
+    public synchronized int getReplayCount() {
+        return replay.size();
+    }
+
+    synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+    }
+
+    /**
+     * Counts a failed connection attempt. Pool timeouts mean the database is
+     * busy rather than gone, so they don't count.
+     */
+    synchronized void recordFailure(SQLException e) {
+        if (e instanceof SQLTimeoutException || open) {
+            return;
+        }
+        if (++consecutiveFailures >= FAILURE_THRESHOLD) {
+            openCircuit(e.getMessage());
+        }
+    }
+
+    /**
+     * Opens the circuit straight away, e.g. when the first connection at
+     * startup already failed
+     */
+    public synchronized void trip(String reason) {
+        if (!open) {
+            openCircuit(reason);
+        }
+    }
+
+    private void openCircuit(String reason) {
+        open = true;
+        EVENTS.inc("opened");
+        System.err.println("DatabaseCircuitBreaker: Database unavailable, using file storage until it recovers: "
+                + reason);
+        if (prober == null) {
+            prober = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "thinklink-db-health");
+                t.setDaemon(true);
+                return t;
+            });
+            prober.scheduleWithFixedDelay(this::probe, PROBE_INTERVAL_MILLIS, PROBE_INTERVAL_MILLIS,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Queues a database write to run once the circuit closes. A later write
+     * with the same key replaces the earlier one. If the circuit has closed
+     * since the caller checked, the write runs now instead.
+     */
+    public void queueReplay(String key, Supplier<Boolean> write) {
+        synchronized (this) {
+            if (isOpen()) {
+                replay.remove(key);
+                replay.put(key, write);
+                if (replay.size() > MAX_REPLAY_WRITES) {
+                    Iterator<String> oldest = replay.keySet().iterator();
+                    oldest.next();
+                    oldest.remove();
+                    EVENTS.inc("replay_dropped");
+                }
+                return;
+            }
+        }
+        try {
+            write.get();
+        } catch (RuntimeException e) {
+            System.err.println("DatabaseCircuitBreaker: Write of " + key + " failed: " + e.getMessage());
+        }
+    }
+
+    private void probe() {
+        if (!open) {
+            return;
+        }
+        try {
+            DatabaseConnectionManager.getInstance().probe();
+        } catch (SQLException | RuntimeException e) {
+            return;
+        }
+        synchronized (this) {
+            open = false;
+            replaying = true;
+            consecutiveFailures = 0;
+        }
+        System.out.println("DatabaseCircuitBreaker: Database reachable again, replaying " + getReplayCount()
+                + " queued writes");
+        if (replayQueued()) {
+            EVENTS.inc("closed");
+            System.out.println("DatabaseCircuitBreaker: Replay finished, using the database again");
+        }
+    }
+
+    // Runs the queued writes oldest first, taking one at a time so writes
+    // queued meanwhile replace entries that haven't run yet. Returns false if
+    // the database went down again; the rest stay queued.
+    private boolean replayQueued() {
+        while (true) {
+            String key;
+            Supplier<Boolean> write;
+            synchronized (this) {
+                if (open) {
+                    replaying = false;
+                    return false;
+                }
+                if (replay.isEmpty()) {
+                    replaying = false;
+                    return true;
+                }
+                key = replay.keySet().iterator().next();
+                write = replay.remove(key);
+            }
+            boolean saved;
+            try {
+                saved = write.get();
+            } catch (RuntimeException e) {
+                saved = false;
+            }
+            if (saved) {
+                EVENTS.inc("replayed");
+                continue;
+            }
+            try {
+                DatabaseConnectionManager.getInstance().probe();
+            } catch (SQLException | RuntimeException e) {
+                // Down again: keep the write unless a newer one replaced it
+                synchronized (this) {
+                    replay.putIfAbsent(key, write);
+                    if (!open) {
+                        openCircuit(e.getMessage());
+                    }
+                    replaying = false;
+                }
+                return false;
+            }
+            EVENTS.inc("replay_failed");
+            System.err.println("DatabaseCircuitBreaker: Replay of " + key + " failed; the file copy is kept");
+        }
+    }
+}
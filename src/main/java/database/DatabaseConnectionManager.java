@@ -1,9 +1,7 @@
 package main.java.database;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.Properties;
 import java.io.IOException;
 import java.io.InputStream;
@@ -20,9 +18,20 @@ public class DatabaseConnectionManager {
     private String url;
     private String username;
     private String password;
+    private final ConnectionPool.Config poolConfig = new ConnectionPool.Config();
+    // Hash partitions for boxes and box_connections, 0 for plain tables
+    private int boardPartitions;
+    private ConnectionPool pool;
+    private boolean schemaReady;
 
     private DatabaseConnectionManager() {
         loadDatabaseConfig();
+        try {
+            Class.forName("org.postgresql.Driver");
+        } catch (ClassNotFoundException e) {
+            System.err.println("PostgreSQL JDBC driver not found: " + e.getMessage());
+        }
+        this.pool = new ConnectionPool(url, username, password, poolConfig);
     }
 
     public static synchronized DatabaseConnectionManager getInstance() {
@@ -32,39 +41,105 @@ public class DatabaseConnectionManager {
         return instance;
     }
 
+    /**
+     * Reads database.properties from the classpath. A JVM system property with
+     * the same key (e.g. -Ddb.url=...) overrides the file.
+     */
     private void loadDatabaseConfig() {
+        Properties props = new Properties();
         try (InputStream input = getClass().getClassLoader().getResourceAsStream("database.properties")) {
             if (input != null) {
-                Properties props = new Properties();
                 props.load(input);
-
-                this.url = props.getProperty("db.url", DEFAULT_URL);
-                this.username = props.getProperty("db.username", DEFAULT_USERNAME);
-                this.password = props.getProperty("db.password", DEFAULT_PASSWORD);
-            } else {
-                // Use default values if properties file not found
-                this.url = DEFAULT_URL;
-                this.username = DEFAULT_USERNAME;
-                this.password = DEFAULT_PASSWORD;
             }
         } catch (IOException e) {
             System.err.println("Error loading database configuration: " + e.getMessage());
-            // Use default values
-            this.url = DEFAULT_URL;
-            this.username = DEFAULT_USERNAME;
-            this.password = DEFAULT_PASSWORD;
         }
+
+        this.url = stringProperty(props, "db.url", DEFAULT_URL);
+        this.username = stringProperty(props, "db.username", DEFAULT_USERNAME);
+        this.password = stringProperty(props, "db.password", DEFAULT_PASSWORD);
+        this.boardPartitions = Math.max(0, intProperty(props, "db.partitions", 0));
+
+        poolConfig.minConnections = intProperty(props, "db.pool.minConnections", poolConfig.minConnections);
+        poolConfig.maxConnections = intProperty(props, "db.pool.maxConnections", poolConfig.maxConnections);
+        poolConfig.connectionTimeoutMillis = intProperty(props, "db.pool.connectionTimeout",
+                (int) poolConfig.connectionTimeoutMillis);
+        poolConfig.idleTimeoutMillis = intProperty(props, "db.pool.idleTimeout",
+                (int) poolConfig.idleTimeoutMillis);
+        poolConfig.maxLifetimeMillis = intProperty(props, "db.pool.maxLifetime",
+                (int) poolConfig.maxLifetimeMillis);
+        poolConfig.leakDetectionThresholdMillis = intProperty(props, "db.pool.leakDetectionThreshold",
+                (int) poolConfig.leakDetectionThresholdMillis);
+        poolConfig.validationTimeoutSeconds = intProperty(props, "db.pool.validationTimeoutSeconds",
+                poolConfig.validationTimeoutSeconds);
+        poolConfig.statementCacheSize = intProperty(props, "db.pool.statementCacheSize",
+                poolConfig.statementCacheSize);
+        poolConfig.prepareThreshold = intProperty(props, "db.pool.prepareThreshold",
+                poolConfig.prepareThreshold);
+        poolConfig.maxConnections = Math.max(1, poolConfig.maxConnections);
+        poolConfig.minConnections = Math.max(0,
+                Math.min(poolConfig.minConnections, poolConfig.maxConnections));
     }
 
+    private static String stringProperty(Properties props, String key, String defaultValue) {
+        return System.getProperty(key, props.getProperty(key, defaultValue));
+    }
+
+    private static int intProperty(Properties props, String key, int defaultValue) {
+        String value = System.getProperty(key, props.getProperty(key));
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + ": '" + value + "', using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Borrows a pooled connection. Closing it returns it to the pool.
+     * prepareStatement(sql) on it is served from the connection's statement
+     * cache, so DAOs should keep passing constant SQL strings.
+     */
     public Connection getConnection() throws SQLException {
+        DatabaseCircuitBreaker breaker = DatabaseCircuitBreaker.getInstance();
+        if (breaker.rejectsConnections()) {
+            throw new SQLException("Database unavailable (circuit open)", "08001");
+        }
+        Connection conn;
         try {
-            Class.forName("org.postgresql.Driver");
-            return DriverManager.getConnection(url, username, password);
-        } catch (ClassNotFoundException e) {
-            throw new SQLException("PostgreSQL JDBC driver not found", e);
+            conn = pool.getConnection();
+        } catch (SQLException e) {
+            breaker.recordFailure(e);
+            throw e;
+        }
+        breaker.recordSuccess();
+        return StatementEvents.instrument(conn);
+    }
+
+    /**
+     * Health check for the circuit breaker: borrows a connection from the pool
+     * directly, past the open circuit, and finishes schema setup if startup
+     * couldn't
+     */
+    synchronized void probe() throws SQLException {
+        try (Connection conn = pool.getConnection()) {
+            if (!schemaReady) {
+                SchemaMigrator.migrate(conn, boardPartitions);
+                schemaReady = true;
+            }
         }
     }
 
+    /**
+     * Closes all pooled connections, e.g. on application exit
+     */
+    public void shutdown() {
+        pool.close();
+    }
+
     public void testConnection() throws SQLException {
         try (Connection conn = getConnection()) {
             System.out.println("Database connection successful!");
@@ -72,128 +147,25 @@ public class DatabaseConnectionManager {
     }
 
     /**
-     * Initialize database schema - creates tables if they don't exist
+     * Brings the database schema up to date. Runs the migrations once per
+     * process; later calls return immediately.
      */
-    public void initializeDatabase() throws SQLException {
-        try (Connection conn = getConnection();
-                Statement stmt = conn.createStatement()) {
-
-            // Create users table
-            stmt.execute("""
-                        CREATE TABLE IF NOT EXISTS users (
-                            user_email VARCHAR(255) PRIMARY KEY,
-                            role VARCHAR(50) NOT NULL DEFAULT 'Customary',
-                            created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                            last_login TIMESTAMP,
-                            is_active BOOLEAN DEFAULT TRUE
-                        )
-                    """);
-
-            // Create boards table
-            stmt.execute("""
-                        CREATE TABLE IF NOT EXISTS boards (
-                            board_id VARCHAR(255) PRIMARY KEY,
-                            board_name VARCHAR(255) NOT NULL,
-                            creator_email VARCHAR(255) NOT NULL REFERENCES users(user_email),
-                            is_shared BOOLEAN DEFAULT FALSE,
-                            created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                            updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-                        )
-                    """);
-
-            // Create boxes table
-            stmt.execute("""
-                        CREATE TABLE IF NOT EXISTS boxes (
-                            box_id SERIAL PRIMARY KEY,
-                            board_id VARCHAR(255) NOT NULL REFERENCES boards(board_id) ON DELETE CASCADE,
-                            title VARCHAR(500) NOT NULL DEFAULT 'New Task',
-                            content TEXT DEFAULT '',
-                            position_x INTEGER NOT NULL DEFAULT 0,
-                            position_y INTEGER NOT NULL DEFAULT 0,
-                            width INTEGER DEFAULT 150,
-                            height INTEGER DEFAULT 100,
-                            color VARCHAR(20) DEFAULT '#F0F0F0',
-                            created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                            updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-                        )
-                    """);
-
-            // Create box_connections table
-            stmt.execute("""
-                        CREATE TABLE IF NOT EXISTS box_connections (
-                            connection_id SERIAL PRIMARY KEY,
-                            source_box_id INTEGER NOT NULL REFERENCES boxes(box_id) ON DELETE CASCADE,
-                            target_box_id INTEGER NOT NULL REFERENCES boxes(box_id) ON DELETE CASCADE,
-                            created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                            UNIQUE(source_box_id, target_box_id)
-                        )
-                    """);
-
-            // Create notes table
-            stmt.execute("""
-                        CREATE TABLE IF NOT EXISTS notes (
-                            note_id SERIAL PRIMARY KEY,
-                            user_email VARCHAR(255) NOT NULL REFERENCES users(user_email),
-                            title VARCHAR(255) NOT NULL,
-                            content TEXT,
-                            created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                            updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                            UNIQUE(user_email, title)
-                        )
-                    """);
-
-            // Create checklists table
-            stmt.execute("""
-                        CREATE TABLE IF NOT EXISTS checklists (
-                            checklist_id SERIAL PRIMARY KEY,
-                            user_email VARCHAR(255) NOT NULL REFERENCES users(user_email),
-                            title VARCHAR(255) NOT NULL,
-                            created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                            updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                            UNIQUE(user_email, title)
-                        )
-                    """);
-
-            // Create checklist_items table
-            stmt.execute("""
-                        CREATE TABLE IF NOT EXISTS checklist_items (
-                            item_id SERIAL PRIMARY KEY,
-                            checklist_id INTEGER NOT NULL REFERENCES checklists(checklist_id) ON DELETE CASCADE,
-                            text VARCHAR(500) NOT NULL,
-                            is_completed BOOLEAN DEFAULT FALSE,
-                            position_order INTEGER DEFAULT 0,
-                            created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-                        )
-                    """);
-
-            // Create deadlines table
-            stmt.execute("""
-                        CREATE TABLE IF NOT EXISTS deadlines (
-                            deadline_id SERIAL PRIMARY KEY,
-                            description VARCHAR(500) NOT NULL,
-                            due_date TIMESTAMP NOT NULL,
-                            assigned_to VARCHAR(255) REFERENCES users(user_email),
-                            created_by VARCHAR(255) NOT NULL REFERENCES users(user_email),
-                            is_completed BOOLEAN DEFAULT FALSE,
-                            created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                            updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-                        )
-                    """);
-
-            // Create indexes for performance
-            stmt.execute("CREATE INDEX IF NOT EXISTS idx_boxes_board_id ON boxes(board_id)");
-            stmt.execute("CREATE INDEX IF NOT EXISTS idx_box_connections_source ON box_connections(source_box_id)");
-            stmt.execute("CREATE INDEX IF NOT EXISTS idx_box_connections_target ON box_connections(target_box_id)");
-            stmt.execute("CREATE INDEX IF NOT EXISTS idx_notes_user ON notes(user_email)");
-            stmt.execute("CREATE INDEX IF NOT EXISTS idx_checklists_user ON checklists(user_email)");
-            stmt.execute("CREATE INDEX IF NOT EXISTS idx_deadlines_assigned ON deadlines(assigned_to)");
-            stmt.execute("CREATE INDEX IF NOT EXISTS idx_deadlines_due_date ON deadlines(due_date)");
-
-            System.out.println("Database schema initialized successfully!");
+    public synchronized void initializeDatabase() throws SQLException {
+        if (schemaReady) {
+            return;
+        }
+        try (Connection conn = getConnection()) {
+            int applied = SchemaMigrator.migrate(conn, boardPartitions);
+            schemaReady = true;
+            if (applied > 0) {
+                System.out.println("Database schema initialized successfully!");
+            } else {
+                System.out.println("Database schema is up to date (version " + SchemaMigrator.latestVersion() + ")");
+            }
 
         } catch (SQLException e) {
             System.err.println("Error initializing database schema: " + e.getMessage());
             throw e;
         }
     }
-}
\ No newline at end of file
+}
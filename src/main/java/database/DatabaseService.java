@@ -6,7 +6,9 @@ import main.java.board.BoxList;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import javax.swing.SwingUtilities;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -16,6 +18,10 @@ import java.util.Map;
  * Using PostgreSQL for multi-user database support
  */
 public class DatabaseService {
+    private static final int BOARD_CACHE_SIZE = 32;
+    // Shared by every service instance, like the connection pool behind it
+    private static final BoardCache BOARD_CACHE = new BoardCache(BOARD_CACHE_SIZE);
+
     private final UserDAO userDAO;
     private final BoardDAO boardDAO;
     private final BoxDAO boxDAO;
@@ -23,6 +29,8 @@ public class DatabaseService {
     private final NoteDAO noteDAO;
     private final ChecklistDAO checklistDAO;
     private final DeadlineDAO deadlineDAO;
+    private final SearchDAO searchDAO;
+    private final BoardCopyDAO boardCopyDAO;
 
     public DatabaseService() {
         this.userDAO = new UserDAO();
@@ -32,6 +40,8 @@ public class DatabaseService {
         this.noteDAO = new NoteDAO();
         this.checklistDAO = new ChecklistDAO();
         this.deadlineDAO = new DeadlineDAO();
+        this.searchDAO = new SearchDAO();
+        this.boardCopyDAO = new BoardCopyDAO();
     }
 
     /**
@@ -52,37 +62,39 @@ public class DatabaseService {
     }
 
     /**
-     * Saves complete board state to database
+     * Saves the boxes of a board that changed since the last save, in a single
+     * transaction
      */
     public boolean saveBoardToDatabase(String boardId, String boardName, String creatorEmail, BoxList boxList) {
         try {
-            // Create/update board
-            boardDAO.createBoard(boardId, boardName, creatorEmail, true);
-
-            // Clear existing boxes for this board (cascade will handle connections)
-            // This is a simplified approach - in production you might want more
-            // sophisticated sync
-
-            Box current = boxList.getFirstNode();
-            while (current != null) {
-                // Create/update box
-                if (current.getId() > 0) {
-                    boxDAO.updateBox(current);
-                } else {
-                    int newBoxId = boxDAO.createBox(boardId, current);
-                    current.setId(newBoxId);
-                }
-
-                // Update connections
-                connectionDAO.updateConnectionsForBox(current.getId(), current.getConnectedBoxIds());
-
-                current = current.getNext();
+            List<BoxWrite> writes = BoxWrite.dirtyOf(boxList);
+            BOARD_CACHE.invalidate(boardId);
+            int[] newIds = boardDAO.saveDirtyBoxes(boardId, boardName, creatorEmail, writes);
+            if (newIds == null) {
+                return false;
             }
-
-            // Update board timestamp
-            boardDAO.touchBoard(boardId);
+            BoxWrite.applySaved(writes, newIds);
             return true;
+        } catch (Exception e) {
+            System.err.println("Error saving board to PostgreSQL database: " + e.getMessage());
+            return false;
+        }
+    }
 
+    /**
+     * Saves box snapshots taken earlier, e.g. by a replay after an outage, from
+     * any thread. The saved fields and new ids are applied to the boxes on the
+     * EDT.
+     */
+    public boolean saveBoxWrites(String boardId, String boardName, String creatorEmail, List<BoxWrite> writes) {
+        try {
+            BOARD_CACHE.invalidate(boardId);
+            int[] newIds = boardDAO.saveDirtyBoxes(boardId, boardName, creatorEmail, writes);
+            if (newIds == null) {
+                return false;
+            }
+            SwingUtilities.invokeLater(() -> BoxWrite.applySaved(writes, newIds));
+            return true;
         } catch (Exception e) {
             System.err.println("Error saving board to PostgreSQL database: " + e.getMessage());
             return false;
@@ -90,26 +102,13 @@ public class DatabaseService {
     }
 
     /**
-     * Loads board state from database
+     * Loads board state from database with one query for boxes and connections
      */
     public BoxList loadBoardFromDatabase(String boardId) {
         BoxList boxList = new BoxList();
 
         try {
-            // Get all boxes for the board
-            List<Map<String, Object>> boxes = boxDAO.getBoxesForBoard(boardId);
-
-            for (Map<String, Object> boxData : boxes) {
-                Box box = boxDAO.mapToBox(boxData);
-                if (box != null) {
-                    // Load connections for this box
-                    List<Integer> connections = connectionDAO.getConnectionsForBox(box.getId());
-                    box.setConnectedBoxIds(connections);
-
-                    boxList.addNode(box);
-                }
-            }
-
+            boxList.addNodes(boxDAO.getBoxesWithConnectionsForBoard(boardId));
         } catch (Exception e) {
             System.err.println("Error loading board from PostgreSQL database: " + e.getMessage());
         }
@@ -118,27 +117,18 @@ public class DatabaseService {
     }
 
     /**
-     * Saves a single box update to database
+     * Saves a single box update to database, writing only its dirty fields
      */
     public boolean saveBoxUpdate(Box box, String boardId) {
         try {
-            if (box.getId() > 0) {
-                // Update existing box
-                boolean boxUpdated = boxDAO.updateBox(box);
-                boolean connectionsUpdated = connectionDAO.updateConnectionsForBox(box.getId(),
-                        box.getConnectedBoxIds());
-                boardDAO.touchBoard(boardId);
-                return boxUpdated && connectionsUpdated;
-            } else {
-                // Create new box
-                int newBoxId = boxDAO.createBox(boardId, box);
-                if (newBoxId > 0) {
-                    box.setId(newBoxId);
-                    connectionDAO.updateConnectionsForBox(newBoxId, box.getConnectedBoxIds());
-                    boardDAO.touchBoard(boardId);
-                    return true;
-                }
+            BoxWrite write = BoxWrite.of(box);
+            BOARD_CACHE.invalidate(boardId);
+            int[] newIds = boardDAO.saveDirtyBoxes(boardId, null, null, List.of(write));
+            if (newIds == null) {
+                return false;
             }
+            write.applySaved(newIds[0]);
+            return true;
         } catch (Exception e) {
             System.err.println("Error saving box update to PostgreSQL: " + e.getMessage());
         }
@@ -150,7 +140,8 @@ public class DatabaseService {
      */
     public boolean deleteBoxFromDatabase(int boxId, String boardId) {
         try {
-            boolean deleted = boxDAO.deleteBox(boxId);
+            BOARD_CACHE.invalidate(boardId);
+            boolean deleted = boxDAO.deleteBox(boardId, boxId);
             if (deleted) {
                 boardDAO.touchBoard(boardId);
             }
@@ -162,43 +153,192 @@ public class DatabaseService {
     }
 
     /**
-     * Converts BoxList to JSON format
+     * Converts a board to JSON. Served from the board cache when the board's
+     * version still matches, otherwise rebuilt from the database and cached.
      */
     public JSONObject boardToJSON(String boardId) {
         try {
-            BoxList boxList = loadBoardFromDatabase(boardId);
-            JSONObject boardData = new JSONObject();
-            boardData.put("boardId", boardId);
+            // Read the version before the boxes so a concurrent write can only make the entry stale
+            long version = boardDAO.getBoardVersion(boardId);
+            String cached = BOARD_CACHE.get(boardId, version);
+            JSONObject boardData;
+            if (cached != null) {
+                boardData = new JSONObject(cached);
+            } else {
+                boardData = buildBoardJSON(boardId);
+                BOARD_CACHE.put(boardId, version, boardData.toString());
+            }
             boardData.put("lastUpdated", System.currentTimeMillis());
+            return boardData;
+
+        } catch (Exception e) {
+            System.err.println("Error converting board to JSON: " + e.getMessage());
+            return null;
+        }
+    }
 
-            JSONArray boxesArray = new JSONArray();
-            Box current = boxList.getFirstNode();
+    private JSONObject buildBoardJSON(String boardId) {
+        BoxList boxList = loadBoardFromDatabase(boardId);
+        JSONObject boardData = new JSONObject();
+        boardData.put("boardId", boardId);
+
+        JSONArray boxesArray = new JSONArray();
+        Box current = boxList.getFirstNode();
+
+        while (current != null) {
+            JSONObject boxJson = new JSONObject();
+            boxJson.put("id", current.getId());
+            boxJson.put("title", current.getTitle());
+            boxJson.put("content", current.getContent());
+            boxJson.put("x", current.getBoxX());
+            boxJson.put("y", current.getBoxY());
+
+            JSONArray connectionsArray = new JSONArray();
+            for (Integer connectionId : current.getConnectedBoxIds()) {
+                connectionsArray.put(connectionId);
+            }
+            boxJson.put("connections", connectionsArray);
 
-            while (current != null) {
-                JSONObject boxJson = new JSONObject();
-                boxJson.put("id", current.getId());
-                boxJson.put("title", current.getTitle());
-                boxJson.put("content", current.getContent());
-                boxJson.put("x", current.getBoxX());
-                boxJson.put("y", current.getBoxY());
+            boxesArray.put(boxJson);
+            current = current.getNext();
+        }
 
-                JSONArray connectionsArray = new JSONArray();
-                for (Integer connectionId : current.getConnectedBoxIds()) {
-                    connectionsArray.put(connectionId);
-                }
-                boxJson.put("connections", connectionsArray);
+        boardData.put("boxes", boxesArray);
+        return boardData;
+    }
 
-                boxesArray.put(boxJson);
-                current = current.getNext();
+    /**
+     * Bulk-imports a board saved as JSON (BoardPersistence or shared board
+     * format, optionally with width, height and color) over COPY. The boxes
+     * get new ids; returns old id -> new id, or null if nothing was imported.
+     */
+    public Map<Integer, Integer> importBoard(String boardId, String boardName, String creatorEmail,
+            JSONObject boardData) {
+        List<Box> boxes = new ArrayList<>();
+        JSONArray boxesArray = boardData.optJSONArray("boxes");
+        if (boxesArray != null) {
+            for (int i = 0; i < boxesArray.length(); i++) {
+                JSONObject boxJson = boxesArray.getJSONObject(i);
+                Box box = new Box(boxJson.optInt("x"), boxJson.optInt("y"), boxJson.optString("title", "New Task"),
+                        boxJson.optString("content", ""), boxJson.optInt("id", -1));
+                box.setBoxSize(boxJson.optInt("height", box.getBoxHeight()), boxJson.optInt("width", box.getBoxWidth()));
+                if (boxJson.has("color")) {
+                    try {
+                        box.setBoxColor(java.awt.Color.decode(boxJson.getString("color")));
+                    } catch (RuntimeException e) {
+                        // Keep the default colour
+                    }
+                }
+                JSONArray connectionsArray = boxJson.optJSONArray("connections");
+                if (connectionsArray != null) {
+                    for (int j = 0; j < connectionsArray.length(); j++) {
+                        box.getConnectedBoxIds().add(connectionsArray.getInt(j));
+                    }
+                }
+                boxes.add(box);
             }
+        }
+        BOARD_CACHE.invalidate(boardId);
+        return boardCopyDAO.importBoxes(boardId, boardName, creatorEmail, boxes);
+    }
 
-            boardData.put("boxes", boxesArray);
-            return boardData;
+    /**
+     * Bulk-imports an in-memory board, e.g. one read with SaveAndLoad.readMap,
+     * over COPY. Returns old id -> new id, or null if nothing was imported.
+     */
+    public Map<Integer, Integer> importBoard(String boardId, String boardName, String creatorEmail,
+            BoxList boxList) {
+        List<Box> boxes = new ArrayList<>();
+        for (Box box = boxList.getFirstNode(); box != null; box = box.getNext()) {
+            boxes.add(box);
+        }
+        BOARD_CACHE.invalidate(boardId);
+        return boardCopyDAO.importBoxes(boardId, boardName, creatorEmail, boxes);
+    }
 
+    /**
+     * Deletes a board with all its boxes and connections
+     */
+    public boolean deleteBoardFromDatabase(String boardId) {
+        try {
+            BOARD_CACHE.invalidate(boardId);
+            return boardDAO.deleteBoard(boardId);
         } catch (Exception e) {
-            System.err.println("Error converting board to JSON: " + e.getMessage());
+            System.err.println("Error deleting board from PostgreSQL database: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Duplicates a board, e.g. to use it as a template, entirely inside the
+     * database. The copy belongs to creatorEmail. False if the source is
+     * missing or newBoardId is taken.
+     */
+    public boolean cloneBoard(String sourceBoardId, String newBoardId, String newBoardName, String creatorEmail) {
+        try {
+            return boardDAO.cloneBoard(sourceBoardId, newBoardId, newBoardName, creatorEmail);
+        } catch (Exception e) {
+            System.err.println("Error cloning board in PostgreSQL database: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Exports a board over COPY as JSON in the format importBoard reads,
+     * including sizes and colours. Null if the export failed.
+     */
+    public JSONObject exportBoard(String boardId) {
+        List<Box> boxes = boardCopyDAO.exportBoxes(boardId);
+        if (boxes == null) {
             return null;
         }
+        JSONArray boxesArray = new JSONArray();
+        for (Box box : boxes) {
+            JSONObject boxJson = new JSONObject();
+            boxJson.put("id", box.getId());
+            boxJson.put("title", box.getTitle());
+            boxJson.put("content", box.getContent());
+            boxJson.put("x", box.getBoxX());
+            boxJson.put("y", box.getBoxY());
+            boxJson.put("width", box.getBoxWidth());
+            boxJson.put("height", box.getBoxHeight());
+            java.awt.Color color = box.getBoxColor();
+            boxJson.put("color", String.format("#%02X%02X%02X", color.getRed(), color.getGreen(), color.getBlue()));
+            boxJson.put("connections", new JSONArray(box.getConnectedBoxIds()));
+            boxesArray.put(boxJson);
+        }
+        JSONObject boardData = new JSONObject();
+        boardData.put("boardId", boardId);
+        boardData.put("boxes", boxesArray);
+        return boardData;
+    }
+
+    /**
+     * Current version of a board, -1 if it doesn't exist. Read it before
+     * loading the board; later changes then all come back from getChangesSince.
+     */
+    public long getBoardVersion(String boardId) {
+        return boardDAO.getBoardVersion(boardId);
+    }
+
+    /**
+     * What changed on a board after sinceVersion, so a client that has the
+     * board at that version can catch up without reloading it. Null if the
+     * board is gone or the database is unreachable.
+     */
+    public BoardChanges getChangesSince(String boardId, long sinceVersion) {
+        return boardDAO.getChangesSince(boardId, sinceVersion);
+    }
+
+    /**
+     * Ranked full-text search over the user's notes and the boxes of boards
+     * they can see. Pass the last result of the previous page as after.
+     */
+    public List<SearchResult> search(String userEmail, String query, SearchResult after, int limit) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        return searchDAO.search(userEmail, query.trim(), after, limit);
     }
 
     // Delegate methods for direct DAO access when needed
@@ -229,4 +369,8 @@ public class DatabaseService {
     public DeadlineDAO getDeadlineDAO() {
         return deadlineDAO;
     }
+
+    public BoardCopyDAO getBoardCopyDAO() {
+        return boardCopyDAO;
+    }
 }
\ No newline at end of file
@@ -117,6 +117,74 @@ public class DeadlineDAO {
         return deadlines;
     }
 
+    /**
+     * One page of getAllDeadlines in due date order. Pass the last row of the
+     * previous page as after (null for the first page).
+     */
+    public List<DeadlineRow> getDeadlinesPage(DeadlineRow after, int limit) {
+        List<DeadlineRow> deadlines = new ArrayList<>(limit);
+        String sql = "SELECT " + DeadlineRow.COLUMNS
+                + " FROM deadlines d LEFT JOIN users u1 ON d.assigned_to = u1.user_email"
+                + (after != null ? " WHERE (d.due_date, d.deadline_id) > (?, ?)" : "")
+                + " ORDER BY d.due_date, d.deadline_id LIMIT ?";
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            if (after != null) {
+                stmt.setTimestamp(index++, after.dueDate());
+                stmt.setInt(index++, after.deadlineId());
+            }
+            stmt.setInt(index, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    deadlines.add(DeadlineRow.from(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error retrieving deadlines page: " + e.getMessage());
+        }
+
+        return deadlines;
+    }
+
+    /**
+     * Deadlines due in [from, to), in due date order. Pass assignedTo to only
+     * get that user's deadlines, or null for everyone's. Returns null if the
+     * query failed, so callers can tell that from a range without deadlines.
+     */
+    public List<DeadlineRow> getDeadlinesInRange(Timestamp from, Timestamp to, String assignedTo) {
+        List<DeadlineRow> deadlines = new ArrayList<>();
+        String sql = "SELECT " + DeadlineRow.COLUMNS
+                + " FROM deadlines d LEFT JOIN users u1 ON d.assigned_to = u1.user_email"
+                + " WHERE d.due_date >= ? AND d.due_date < ?"
+                + (assignedTo != null ? " AND d.assigned_to = ?" : "")
+                + " ORDER BY d.due_date, d.deadline_id";
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, from);
+            stmt.setTimestamp(2, to);
+            if (assignedTo != null) {
+                stmt.setString(3, assignedTo);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    deadlines.add(DeadlineRow.from(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error retrieving deadlines in range: " + e.getMessage());
+            return null;
+        }
+
+        return deadlines;
+    }
+
     /**
      * Updates deadline completion status
      */
@@ -0,0 +1,29 @@
+package main.java.database;
+
+import main.java.auth.User;
+import main.java.calendar.Deadline;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+
+/**
+ * One row of the deadlines table with the assignee's role joined in
+ */
+public record DeadlineRow(int deadlineId, String description, Timestamp dueDate, String assignedTo,
+        String assignedRole, boolean completed) {
+
+    // Select list matching from(); expects deadlines aliased d and the assignee u1
+    static final String COLUMNS = "d.deadline_id, d.description, d.due_date, d.assigned_to, u1.role, d.is_completed";
+
+    static DeadlineRow from(ResultSet rs) throws SQLException {
+        return new DeadlineRow(rs.getInt(1), rs.getString(2), rs.getTimestamp(3), rs.getString(4),
+                rs.getString(5), rs.getBoolean(6));
+    }
+
+    public Deadline toDeadline() {
+        User assignee = new User(assignedTo, assignedRole != null ? assignedRole : User.ROLE_CUSTOMARY);
+        return new Deadline(description, new Date(dueDate.getTime()), assignee);
+    }
+}
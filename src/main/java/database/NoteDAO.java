@@ -1,5 +1,6 @@
 package main.java.database;
 
+import main.java.notes.NoteHeader;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -89,6 +90,33 @@ public class NoteDAO {
         return notes;
     }
 
+    /**
+     * Gets the title, last update and content size of every note of a user in
+     * one query, most recently updated first. Content is left in the database.
+     */
+    public List<NoteHeader> getNoteHeaders(String userEmail) {
+        List<NoteHeader> headers = new ArrayList<>();
+        String sql = "SELECT title, updated_at, COALESCE(octet_length(content), 0) FROM notes WHERE user_email = ? ORDER BY updated_at DESC";
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, userEmail);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp updatedAt = rs.getTimestamp(2);
+                    headers.add(new NoteHeader(rs.getString(1), updatedAt != null ? updatedAt.getTime() : 0,
+                            rs.getLong(3)));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error retrieving note headers: " + e.getMessage());
+        }
+
+        return headers;
+    }
+
     /**
      * Deletes a note
      */
@@ -0,0 +1,489 @@
+package main.java.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ordered schema migrations tracked in a schema_version table. Startup only
+ * reads the current version; DDL runs when a migration is actually pending,
+ * inside one transaction under an advisory lock so concurrent processes apply
+ * each migration once. To change the schema, append a migration to
+ * MIGRATIONS with the next version number; never edit one that has shipped.
+ *
+ * With db.partitions > 0 the runner also converts boxes and box_connections
+ * into that many hash partitions by board_id, once, after the migrations.
+ */
+final class SchemaMigrator {
+    // Arbitrary key for pg_advisory_xact_lock, shared by every ThinkLink process
+    private static final long MIGRATION_LOCK_KEY = 0x7468696e6b6c6e6bL;
+    private static final String UNDEFINED_TABLE = "42P01";
+
+    private static final List<Migration> MIGRATIONS = new ArrayList<>();
+
+    static {
+        // Baseline: the schema as it was created on every startup before
+        // migrations existed. IF NOT EXISTS lets it adopt those databases.
+        MIGRATIONS.add(new Migration(1, "baseline schema",
+                """
+                    CREATE TABLE IF NOT EXISTS users (
+                        user_email VARCHAR(255) PRIMARY KEY,
+                        role VARCHAR(50) NOT NULL DEFAULT 'Customary',
+                        created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                        last_login TIMESTAMP,
+                        is_active BOOLEAN DEFAULT TRUE
+                    )
+                """,
+                """
+                    CREATE TABLE IF NOT EXISTS boards (
+                        board_id VARCHAR(255) PRIMARY KEY,
+                        board_name VARCHAR(255) NOT NULL,
+                        creator_email VARCHAR(255) NOT NULL REFERENCES users(user_email),
+                        is_shared BOOLEAN DEFAULT FALSE,
+                        created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                        updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                    )
+                """,
+                """
+                    CREATE TABLE IF NOT EXISTS boxes (
+                        box_id SERIAL PRIMARY KEY,
+                        board_id VARCHAR(255) NOT NULL REFERENCES boards(board_id) ON DELETE CASCADE,
+                        title VARCHAR(500) NOT NULL DEFAULT 'New Task',
+                        content TEXT DEFAULT '',
+                        position_x INTEGER NOT NULL DEFAULT 0,
+                        position_y INTEGER NOT NULL DEFAULT 0,
+                        width INTEGER DEFAULT 150,
+                        height INTEGER DEFAULT 100,
+                        color VARCHAR(20) DEFAULT '#F0F0F0',
+                        created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                        updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                    )
+                """,
+                """
+                    CREATE TABLE IF NOT EXISTS box_connections (
+                        connection_id SERIAL PRIMARY KEY,
+                        source_box_id INTEGER NOT NULL REFERENCES boxes(box_id) ON DELETE CASCADE,
+                        target_box_id INTEGER NOT NULL REFERENCES boxes(box_id) ON DELETE CASCADE,
+                        created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                        UNIQUE(source_box_id, target_box_id)
+                    )
+                """,
+                """
+                    CREATE TABLE IF NOT EXISTS notes (
+                        note_id SERIAL PRIMARY KEY,
+                        user_email VARCHAR(255) NOT NULL REFERENCES users(user_email),
+                        title VARCHAR(255) NOT NULL,
+                        content TEXT,
+                        created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                        updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                        UNIQUE(user_email, title)
+                    )
+                """,
+                """
+                    CREATE TABLE IF NOT EXISTS checklists (
+                        checklist_id SERIAL PRIMARY KEY,
+                        user_email VARCHAR(255) NOT NULL REFERENCES users(user_email),
+                        title VARCHAR(255) NOT NULL,
+                        created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                        updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                        UNIQUE(user_email, title)
+                    )
+                """,
+                """
+                    CREATE TABLE IF NOT EXISTS checklist_items (
+                        item_id SERIAL PRIMARY KEY,
+                        checklist_id INTEGER NOT NULL REFERENCES checklists(checklist_id) ON DELETE CASCADE,
+                        text VARCHAR(500) NOT NULL,
+                        is_completed BOOLEAN DEFAULT FALSE,
+                        position_order INTEGER DEFAULT 0,
+                        created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                    )
+                """,
+                """
+                    CREATE TABLE IF NOT EXISTS deadlines (
+                        deadline_id SERIAL PRIMARY KEY,
+                        description VARCHAR(500) NOT NULL,
+                        due_date TIMESTAMP NOT NULL,
+                        assigned_to VARCHAR(255) REFERENCES users(user_email),
+                        created_by VARCHAR(255) NOT NULL REFERENCES users(user_email),
+                        is_completed BOOLEAN DEFAULT FALSE,
+                        created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                        updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                    )
+                """,
+                "CREATE INDEX IF NOT EXISTS idx_boxes_board_id ON boxes(board_id)",
+                "CREATE INDEX IF NOT EXISTS idx_box_connections_source ON box_connections(source_box_id)",
+                "CREATE INDEX IF NOT EXISTS idx_box_connections_target ON box_connections(target_box_id)",
+                "CREATE INDEX IF NOT EXISTS idx_notes_user ON notes(user_email)",
+                "CREATE INDEX IF NOT EXISTS idx_checklists_user ON checklists(user_email)",
+                "CREATE INDEX IF NOT EXISTS idx_deadlines_assigned ON deadlines(assigned_to)",
+                "CREATE INDEX IF NOT EXISTS idx_deadlines_due_date ON deadlines(due_date)"));
+
+        // Seek indexes for the keyset-paginated listings
+        MIGRATIONS.add(new Migration(2, "keyset pagination indexes",
+                "CREATE INDEX IF NOT EXISTS idx_boards_shared_recent ON boards(updated_at DESC, board_id DESC) WHERE is_shared",
+                "CREATE INDEX IF NOT EXISTS idx_boards_creator_recent ON boards(creator_email, updated_at DESC, board_id DESC)",
+                "CREATE INDEX IF NOT EXISTS idx_deadlines_due_id ON deadlines(due_date, deadline_id)",
+                "DROP INDEX IF EXISTS idx_deadlines_due_date"));
+
+        // Full-text search; the vectors are generated columns, so every
+        // write path keeps them current without triggers
+        MIGRATIONS.add(new Migration(3, "full-text search",
+                """
+                    ALTER TABLE notes ADD COLUMN IF NOT EXISTS search_vector tsvector
+                        GENERATED ALWAYS AS (
+                            setweight(to_tsvector('english', COALESCE(title, '')), 'A') ||
+                            setweight(to_tsvector('english', COALESCE(content, '')), 'B')
+                        ) STORED
+                """,
+                """
+                    ALTER TABLE boxes ADD COLUMN IF NOT EXISTS search_vector tsvector
+                        GENERATED ALWAYS AS (
+                            setweight(to_tsvector('english', COALESCE(title, '')), 'A') ||
+                            setweight(to_tsvector('english', COALESCE(content, '')), 'B')
+                        ) STORED
+                """,
+                "CREATE INDEX IF NOT EXISTS idx_notes_search ON notes USING GIN (search_vector)",
+                "CREATE INDEX IF NOT EXISTS idx_boxes_search ON boxes USING GIN (search_vector)"));
+
+        // Ordered item reads and neighbour lookups for single-row moves
+        MIGRATIONS.add(new Migration(4, "checklist item ordering index",
+                "CREATE INDEX IF NOT EXISTS idx_checklist_items_order ON checklist_items(checklist_id, position_order, item_id)"));
+
+        // Per-assignee month views seek on (assigned_to, due_date); the
+        // assignee-only index is a prefix of it
+        MIGRATIONS.add(new Migration(5, "deadline assignee date range index",
+                "CREATE INDEX IF NOT EXISTS idx_deadlines_assigned_due ON deadlines(assigned_to, due_date)",
+                "DROP INDEX IF EXISTS idx_deadlines_assigned"));
+
+        // Board versions for optimistic concurrency and incremental sync.
+        // Triggers keep them current on every write path: each box or
+        // connection write bumps its board's version and stamps the row with
+        // it, and each delete leaves a tombstone at the version it happened.
+        // Existing rows start at version 1, so syncing from 0 returns them all.
+        MIGRATIONS.add(new Migration(6, "board and row versions with tombstones",
+                "ALTER TABLE boards ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 1",
+                "ALTER TABLE boxes ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 1",
+                "ALTER TABLE box_connections ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 1",
+                """
+                    CREATE TABLE IF NOT EXISTS board_tombstones (
+                        board_id VARCHAR(255) NOT NULL REFERENCES boards(board_id) ON DELETE CASCADE,
+                        kind VARCHAR(16) NOT NULL,
+                        item_id INTEGER NOT NULL,
+                        source_box_id INTEGER,
+                        target_box_id INTEGER,
+                        version BIGINT NOT NULL,
+                        deleted_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                    )
+                """,
+                "CREATE INDEX IF NOT EXISTS idx_board_tombstones_version ON board_tombstones(board_id, version)",
+                "CREATE INDEX IF NOT EXISTS idx_boxes_board_version ON boxes(board_id, version)",
+                """
+                    CREATE OR REPLACE FUNCTION thinklink_next_board_version(p_board_id VARCHAR) RETURNS BIGINT AS $$
+                        UPDATE boards SET version = version + 1 WHERE board_id = p_board_id RETURNING version
+                    $$ LANGUAGE sql
+                """,
+                """
+                    CREATE OR REPLACE FUNCTION thinklink_version_box() RETURNS trigger AS $$
+                    BEGIN
+                        NEW.version := COALESCE(thinklink_next_board_version(NEW.board_id), 1);
+                        RETURN NEW;
+                    END
+                    $$ LANGUAGE plpgsql
+                """,
+                """
+                    CREATE OR REPLACE FUNCTION thinklink_version_connection() RETURNS trigger AS $$
+                    BEGIN
+                        NEW.version := COALESCE(thinklink_next_board_version(
+                            (SELECT board_id FROM boxes WHERE box_id = NEW.source_box_id)), 1);
+                        RETURN NEW;
+                    END
+                    $$ LANGUAGE plpgsql
+                """,
+                """
+                    CREATE OR REPLACE FUNCTION thinklink_tombstone_box() RETURNS trigger AS $$
+                    DECLARE
+                        v BIGINT := thinklink_next_board_version(OLD.board_id);
+                    BEGIN
+                        -- No board row means the board itself is being deleted
+                        IF v IS NOT NULL THEN
+                            INSERT INTO board_tombstones (board_id, kind, item_id, version)
+                            VALUES (OLD.board_id, 'box', OLD.box_id, v);
+                        END IF;
+                        RETURN OLD;
+                    END
+                    $$ LANGUAGE plpgsql
+                """,
+                """
+                    CREATE OR REPLACE FUNCTION thinklink_tombstone_connection() RETURNS trigger AS $$
+                    DECLARE
+                        b VARCHAR(255) := (SELECT board_id FROM boxes WHERE box_id = OLD.source_box_id);
+                        v BIGINT;
+                    BEGIN
+                        -- Connections cascading from a deleted box are covered by its tombstone
+                        IF b IS NOT NULL THEN
+                            v := thinklink_next_board_version(b);
+                            IF v IS NOT NULL THEN
+                                INSERT INTO board_tombstones (board_id, kind, item_id, source_box_id, target_box_id, version)
+                                VALUES (b, 'connection', OLD.connection_id, OLD.source_box_id, OLD.target_box_id, v);
+                            END IF;
+                        END IF;
+                        RETURN OLD;
+                    END
+                    $$ LANGUAGE plpgsql
+                """,
+                "DROP TRIGGER IF EXISTS boxes_version ON boxes",
+                "CREATE TRIGGER boxes_version BEFORE INSERT OR UPDATE ON boxes FOR EACH ROW EXECUTE FUNCTION thinklink_version_box()",
+                "DROP TRIGGER IF EXISTS box_connections_version ON box_connections",
+                "CREATE TRIGGER box_connections_version BEFORE INSERT OR UPDATE ON box_connections FOR EACH ROW EXECUTE FUNCTION thinklink_version_connection()",
+                "DROP TRIGGER IF EXISTS boxes_tombstone ON boxes",
+                "CREATE TRIGGER boxes_tombstone AFTER DELETE ON boxes FOR EACH ROW EXECUTE FUNCTION thinklink_tombstone_box()",
+                "DROP TRIGGER IF EXISTS box_connections_tombstone ON box_connections",
+                "CREATE TRIGGER box_connections_tombstone AFTER DELETE ON box_connections FOR EACH ROW EXECUTE FUNCTION thinklink_tombstone_connection()"));
+
+        // Connections carry their board (the source box's), so a board's
+        // edges are one range scan instead of a join through boxes. Inserts
+        // that don't set it get it from the version trigger.
+        MIGRATIONS.add(new Migration(7, "board_id on box_connections",
+                "ALTER TABLE box_connections ADD COLUMN IF NOT EXISTS board_id VARCHAR(255) REFERENCES boards(board_id) ON DELETE CASCADE",
+                // A bookkeeping backfill, not a change clients need to sync
+                "ALTER TABLE box_connections DISABLE TRIGGER box_connections_version",
+                """
+                    UPDATE box_connections bc SET board_id = b.board_id
+                    FROM boxes b
+                    WHERE b.box_id = bc.source_box_id AND bc.board_id IS NULL
+                """,
+                "ALTER TABLE box_connections ENABLE TRIGGER box_connections_version",
+                "ALTER TABLE box_connections ALTER COLUMN board_id SET NOT NULL",
+                "CREATE INDEX IF NOT EXISTS idx_box_connections_board ON box_connections(board_id, source_box_id)",
+                """
+                    CREATE OR REPLACE FUNCTION thinklink_version_connection() RETURNS trigger AS $$
+                    BEGIN
+                        IF NEW.board_id IS NULL THEN
+                            NEW.board_id := (SELECT board_id FROM boxes WHERE box_id = NEW.source_box_id);
+                        END IF;
+                        NEW.version := COALESCE(thinklink_next_board_version(NEW.board_id), 1);
+                        RETURN NEW;
+                    END
+                    $$ LANGUAGE plpgsql
+                """,
+                """
+                    CREATE OR REPLACE FUNCTION thinklink_tombstone_connection() RETURNS trigger AS $$
+                    DECLARE
+                        v BIGINT := thinklink_next_board_version(OLD.board_id);
+                    BEGIN
+                        -- No board row means the board itself is being deleted
+                        IF v IS NOT NULL THEN
+                            INSERT INTO board_tombstones (board_id, kind, item_id, source_box_id, target_box_id, version)
+                            VALUES (OLD.board_id, 'connection', OLD.connection_id, OLD.source_box_id, OLD.target_box_id, v);
+                        END IF;
+                        RETURN OLD;
+                    END
+                    $$ LANGUAGE plpgsql
+                """));
+
+        // Conflict target for connection upserts that includes the partition
+        // key, so the same statements work on partitioned tables
+        MIGRATIONS.add(new Migration(8, "board-scoped connection uniqueness",
+                "CREATE UNIQUE INDEX IF NOT EXISTS idx_box_connections_board_pair ON box_connections(board_id, source_box_id, target_box_id)",
+                "DROP INDEX IF EXISTS idx_box_connections_board"));
+
+        // A bulk import bumps its board's version once up front and sets
+        // thinklink.bulk_board/bulk_version for its transaction; rows it
+        // writes to that board all get that version instead of one board
+        // row update each
+        MIGRATIONS.add(new Migration(9, "single version per bulk import",
+                """
+                    CREATE OR REPLACE FUNCTION thinklink_next_board_version(p_board_id VARCHAR) RETURNS BIGINT AS $$
+                    DECLARE
+                        v BIGINT;
+                    BEGIN
+                        IF current_setting('thinklink.bulk_board', true) = p_board_id THEN
+                            RETURN current_setting('thinklink.bulk_version')::BIGINT;
+                        END IF;
+                        UPDATE boards SET version = version + 1 WHERE board_id = p_board_id RETURNING version INTO v;
+                        RETURN v;
+                    END
+                    $$ LANGUAGE plpgsql
+                """));
+    }
+
+    private SchemaMigrator() {
+    }
+
+    static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+    }
+
+    /**
+     * Brings the schema up to the latest version, then partitions the board
+     * tables if boardPartitions > 0 and they aren't yet. Returns the number of
+     * steps applied, 0 when the database was already current.
+     */
+    static int migrate(Connection conn, int boardPartitions) throws SQLException {
+        if (currentVersion(conn) >= latestVersion() && !(boardPartitions > 0 && !isPartitioned(conn))) {
+            return 0;
+        }
+
+        conn.setAutoCommit(false);
+        try {
+            int applied = 0;
+            try (Statement stmt = conn.createStatement()) {
+                // Serializes migrating processes; released at commit/rollback
+                stmt.execute("SELECT pg_advisory_xact_lock(" + MIGRATION_LOCK_KEY + ")");
+                stmt.execute("""
+                            CREATE TABLE IF NOT EXISTS schema_version (
+                                version INTEGER PRIMARY KEY,
+                                description VARCHAR(255) NOT NULL,
+                                applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                            )
+                        """);
+
+                // Another process may have migrated while we waited for the lock
+                int current = currentVersion(conn);
+                for (Migration migration : MIGRATIONS) {
+                    if (migration.version <= current) {
+                        continue;
+                    }
+                    for (String sql : migration.statements) {
+                        stmt.execute(sql);
+                    }
+                    try (PreparedStatement record = conn.prepareStatement(
+                            "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                        record.setInt(1, migration.version);
+                        record.setString(2, migration.description);
+                        record.executeUpdate();
+                    }
+                    System.out.println("Applied schema migration " + migration.version + ": "
+                            + migration.description);
+                    applied++;
+                }
+
+                if (boardPartitions > 0 && !isPartitioned(conn)) {
+                    for (String sql : partitionStatements(boardPartitions)) {
+                        stmt.execute(sql);
+                    }
+                    System.out.println("Partitioned boxes and box_connections into " + boardPartitions
+                            + " hash partitions by board_id");
+                    applied++;
+                }
+            }
+            conn.commit();
+            return applied;
+
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    // Whether boxes is already a partitioned table
+    private static boolean isPartitioned(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT relkind FROM pg_class WHERE oid = to_regclass('boxes')")) {
+            return rs.next() && "p".equals(rs.getString(1));
+        }
+    }
+
+    /**
+     * DDL that rebuilds boxes and box_connections as hash-partitioned tables
+     * with the same columns, sequences, indexes and triggers, and copies the
+     * rows over. Keys include board_id, as partitioning requires, so
+     * connections must stay within one board; cross-board ones are dropped.
+     * The partition count can't be changed afterwards by this runner.
+     */
+    static List<String> partitionStatements(int partitions) {
+        List<String> sql = new ArrayList<>();
+        // Keep the id sequences when the old tables are dropped
+        sql.add("ALTER SEQUENCE boxes_box_id_seq OWNED BY NONE");
+        sql.add("ALTER SEQUENCE box_connections_connection_id_seq OWNED BY NONE");
+
+        sql.add("""
+                    CREATE TABLE boxes_partitioned (
+                        LIKE boxes INCLUDING DEFAULTS INCLUDING GENERATED,
+                        PRIMARY KEY (board_id, box_id),
+                        FOREIGN KEY (board_id) REFERENCES boards(board_id) ON DELETE CASCADE
+                    ) PARTITION BY HASH (board_id)
+                """);
+        sql.add("""
+                    CREATE TABLE box_connections_partitioned (
+                        LIKE box_connections INCLUDING DEFAULTS,
+                        PRIMARY KEY (board_id, connection_id),
+                        UNIQUE (board_id, source_box_id, target_box_id),
+                        FOREIGN KEY (board_id, source_box_id) REFERENCES boxes_partitioned(board_id, box_id) ON DELETE CASCADE,
+                        FOREIGN KEY (board_id, target_box_id) REFERENCES boxes_partitioned(board_id, box_id) ON DELETE CASCADE
+                    ) PARTITION BY HASH (board_id)
+                """);
+        for (int i = 0; i < partitions; i++) {
+            sql.add("CREATE TABLE boxes_p" + i + " PARTITION OF boxes_partitioned FOR VALUES WITH (MODULUS "
+                    + partitions + ", REMAINDER " + i + ")");
+            sql.add("CREATE TABLE box_connections_p" + i + " PARTITION OF box_connections_partitioned"
+                    + " FOR VALUES WITH (MODULUS " + partitions + ", REMAINDER " + i + ")");
+        }
+
+        // The new tables have no triggers yet, so versions copy over as they are
+        sql.add("INSERT INTO boxes_partitioned (" + BoxRow.COLUMNS + ") SELECT " + BoxRow.COLUMNS + " FROM boxes");
+        sql.add("""
+                    INSERT INTO box_connections_partitioned (connection_id, board_id, source_box_id, target_box_id, created_at, version)
+                    SELECT bc.connection_id, bc.board_id, bc.source_box_id, bc.target_box_id, bc.created_at, bc.version
+                    FROM box_connections bc
+                    JOIN boxes t ON t.box_id = bc.target_box_id AND t.board_id = bc.board_id
+                """);
+        sql.add("DROP TABLE box_connections");
+        sql.add("DROP TABLE boxes");
+        sql.add("ALTER TABLE boxes_partitioned RENAME TO boxes");
+        sql.add("ALTER TABLE box_connections_partitioned RENAME TO box_connections");
+        sql.add("ALTER SEQUENCE boxes_box_id_seq OWNED BY boxes.box_id");
+        sql.add("ALTER SEQUENCE box_connections_connection_id_seq OWNED BY box_connections.connection_id");
+
+        // The primary and unique keys cover the board-level lookups; these
+        // serve lookups by box id alone and cascades from target boxes
+        sql.add("CREATE INDEX idx_boxes_box_id ON boxes(box_id)");
+        sql.add("CREATE INDEX idx_boxes_board_version ON boxes(board_id, version)");
+        sql.add("CREATE INDEX idx_boxes_search ON boxes USING GIN (search_vector)");
+        sql.add("CREATE INDEX idx_box_connections_source ON box_connections(source_box_id)");
+        sql.add("CREATE INDEX idx_box_connections_target ON box_connections(board_id, target_box_id)");
+
+        // Row triggers on partitioned tables need PostgreSQL 13+
+        sql.add("CREATE TRIGGER boxes_version BEFORE INSERT OR UPDATE ON boxes FOR EACH ROW EXECUTE FUNCTION thinklink_version_box()");
+        sql.add("CREATE TRIGGER box_connections_version BEFORE INSERT OR UPDATE ON box_connections FOR EACH ROW EXECUTE FUNCTION thinklink_version_connection()");
+        sql.add("CREATE TRIGGER boxes_tombstone AFTER DELETE ON boxes FOR EACH ROW EXECUTE FUNCTION thinklink_tombstone_box()");
+        sql.add("CREATE TRIGGER box_connections_tombstone AFTER DELETE ON box_connections FOR EACH ROW EXECUTE FUNCTION thinklink_tombstone_connection()");
+        return sql;
+    }
+
+    /**
+     * Highest applied version, 0 if schema_version doesn't exist yet
+     */
+    private static int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            rs.next();
+            return rs.getInt(1);
+        } catch (SQLException e) {
+            // Only possible before the first migration, outside a transaction
+            if (UNDEFINED_TABLE.equals(e.getSQLState())) {
+                return 0;
+            }
+            throw e;
+        }
+    }
+
+    private static class Migration {
+        final int version;
+        final String description;
+        final String[] statements;
+
+        Migration(int version, String description, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.statements = statements;
+        }
+    }
+}
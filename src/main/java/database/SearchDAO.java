@@ -0,0 +1,88 @@
+package main.java.database;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Full-text search over a user's notes and the boxes of the boards they can
+ * see, backed by the generated search_vector columns and their GIN indexes
+ */
+public class SearchDAO {
+    // Markers ts_headline puts around matched words in snippets
+    public static final String MATCH_START = "«";
+    public static final String MATCH_END = "»";
+
+    private final DatabaseConnectionManager dbManager;
+
+    public SearchDAO() {
+        this.dbManager = DatabaseConnectionManager.getInstance();
+    }
+
+    /**
+     * One page of hits for a web-style query ("quoted phrases", -excluded,
+     * or), best match first. Pass the last result of the previous page as
+     * after (null for the first page). Snippets are only built for the
+     * returned page.
+     */
+    public List<SearchResult> search(String userEmail, String query, SearchResult after, int limit) {
+        List<SearchResult> results = new ArrayList<>(limit);
+        String sql = """
+                    WITH q AS (SELECT websearch_to_tsquery('english', ?) AS query),
+                    hits AS (
+                        SELECT 'note' AS kind, n.note_id AS item_id, NULL::varchar AS board_id, n.title,
+                            n.content AS body, ts_rank(n.search_vector, q.query) AS rank
+                        FROM notes n, q
+                        WHERE n.user_email = ? AND n.search_vector @@ q.query
+                        UNION ALL
+                        SELECT 'box', b.box_id, b.board_id, b.title, b.content, ts_rank(b.search_vector, q.query)
+                        FROM boxes b JOIN boards bd ON bd.board_id = b.board_id, q
+                        WHERE (bd.creator_email = ? OR bd.is_shared = TRUE) AND b.search_vector @@ q.query
+                    ),
+                    page AS (
+                        SELECT * FROM hits
+                        WHERE ?::real IS NULL OR rank < ? OR (rank = ? AND (kind, item_id) > (?, ?))
+                        ORDER BY rank DESC, kind, item_id
+                        LIMIT ?
+                    )
+                    SELECT kind, item_id, board_id, title,
+                        ts_headline('english', COALESCE(body, ''), (SELECT query FROM q),
+                            'StartSel=%s, StopSel=%s, MaxWords=25, MinWords=8, MaxFragments=2'),
+                        rank
+                    FROM page
+                    ORDER BY rank DESC, kind, item_id
+                """.formatted(MATCH_START, MATCH_END);
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, query);
+            stmt.setString(2, userEmail);
+            stmt.setString(3, userEmail);
+            if (after != null) {
+                stmt.setFloat(4, after.rank());
+                stmt.setFloat(5, after.rank());
+                stmt.setFloat(6, after.rank());
+                stmt.setString(7, after.kind());
+                stmt.setInt(8, after.id());
+            } else {
+                stmt.setNull(4, Types.REAL);
+                stmt.setNull(5, Types.REAL);
+                stmt.setNull(6, Types.REAL);
+                stmt.setNull(7, Types.VARCHAR);
+                stmt.setNull(8, Types.INTEGER);
+            }
+            stmt.setInt(9, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    results.add(SearchResult.from(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error searching: " + e.getMessage());
+        }
+
+        return results;
+    }
+}
@@ -0,0 +1,22 @@
+package main.java.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * One full-text search hit: a note or a box, with a highlighted snippet
+ */
+public record SearchResult(String kind, int id, String boardId, String title, String snippet, float rank) {
+
+    public static final String KIND_NOTE = "note";
+    public static final String KIND_BOX = "box";
+
+    static SearchResult from(ResultSet rs) throws SQLException {
+        return new SearchResult(rs.getString(1), rs.getInt(2), rs.getString(3), rs.getString(4), rs.getString(5),
+                rs.getFloat(6));
+    }
+
+    public boolean isNote() {
+        return KIND_NOTE.equals(kind);
+    }
+}
@@ -0,0 +1,182 @@
+package main.java.database;
+
+import main.java.metrics.MetricsRegistry;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LRU cache of PreparedStatements for one pooled connection, keyed by SQL.
+ * DAOs still call prepareStatement and close it; close() only resets the
+ * statement and puts it back, so the next call with the same SQL reuses the
+ * driver's server-side prepared statement instead of parsing and planning
+ * again. Only used by the thread currently holding the connection.
+ */
+final class StatementCache {
+    private static final MetricsRegistry.Counter LOOKUPS = MetricsRegistry.getInstance().counter(
+            "thinklink_db_statement_cache_total", "Prepared statement cache lookups and evictions", "result");
+
+    private final Connection connection;
+    private final Map<String, Entry> entries;
+    private volatile boolean connectionBroken;
+
+    StatementCache(Connection connection, int maxSize) {
+        this.connection = connection;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= maxSize) {
+                    return false;
+                }
+                LOOKUPS.inc("evicted");
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns a cached statement for this SQL, preparing and caching it on
+     * first use. If the cached one is still open (the same SQL prepared twice
+     * in one borrow) a plain uncached statement is returned instead.
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        Entry entry = entries.get(sql);
+        if (entry == null) {
+            LOOKUPS.inc("miss");
+            entry = new Entry(connection.prepareStatement(sql));
+            entries.put(sql, entry);
+        } else if (entry.inUse) {
+            LOOKUPS.inc("bypass");
+            return connection.prepareStatement(sql);
+        } else {
+            LOOKUPS.inc("hit");
+        }
+        entry.inUse = true;
+        return (PreparedStatement) Proxy.newProxyInstance(StatementCache.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, new Handle(entry));
+    }
+
+    boolean isConnectionBroken() {
+        return connectionBroken;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Closes every cached statement, used when the connection is discarded
+     */
+    void close() {
+        List<Entry> all = new ArrayList<>(entries.values());
+        entries.clear();
+        for (Entry entry : all) {
+            entry.evict();
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            System.err.println("StatementCache: Error closing statement: " + e.getMessage());
+        }
+    }
+
+    private static class Entry {
+        final PreparedStatement statement;
+        boolean inUse;
+        boolean evicted;
+
+        Entry(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        // Evicted while a borrower still holds it: close once they are done
+        void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeQuietly(statement);
+            }
+        }
+    }
+
+    /**
+     * What the DAO sees. Behaves like a normal statement until closed, after
+     * which the underlying statement is reset and handed back to the cache.
+     */
+    private class Handle implements InvocationHandler {
+        private final Entry entry;
+        private boolean closed;
+
+        Handle(Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        giveBack();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || entry.statement.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached" + entry.statement;
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement is closed");
+            }
+            try {
+                return method.invoke(entry.statement, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException && ConnectionPool.isConnectionError((SQLException) cause)) {
+                    connectionBroken = true;
+                }
+                throw cause;
+            }
+        }
+
+        private void giveBack() {
+            entry.inUse = false;
+            if (entry.evicted) {
+                closeQuietly(entry.statement);
+                return;
+            }
+            try {
+                ResultSet rs = entry.statement.getResultSet();
+                if (rs != null) {
+                    rs.close();
+                }
+                entry.statement.clearParameters();
+                entry.statement.clearBatch();
+                entry.statement.clearWarnings();
+            } catch (SQLException e) {
+                // Not safe to reuse, drop it from the cache
+                entries.values().remove(entry);
+                entry.evict();
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package main.java.database;
+
+import main.java.metrics.events.DatabaseStatementEvent;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import jdk.jfr.EventType;
+
+/**
+ * Emits a DatabaseStatementEvent for every statement executed on a connection.
+ * Connections are only wrapped while a JFR recording has the event enabled,
+ * so normal DAO calls pay nothing for the instrumentation.
+ */
+final class StatementEvents {
+    private static final EventType EVENT_TYPE = EventType.getEventType(DatabaseStatementEvent.class);
+
+    private StatementEvents() {
+    }
+
+    static Connection instrument(Connection connection) {
+        if (connection == null || !EVENT_TYPE.isEnabled()) {
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(StatementEvents.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new ConnectionHandler(connection));
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = invokeTarget(target, method, args);
+            if (result instanceof Statement) {
+                String sql = method.getName().equals("prepareStatement") || method.getName().equals("prepareCall")
+                        ? (String) args[0]
+                        : null;
+                Class<?> statementInterface = method.getReturnType();
+                return Proxy.newProxyInstance(StatementEvents.class.getClassLoader(),
+                        new Class<?>[] { statementInterface }, new StatementHandler((Statement) result, sql));
+            }
+            return result;
+        }
+    }
+
+    private static class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String preparedSql;
+        private int batchSize;
+        private DatabaseStatementEvent pendingQuery;
+
+        StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "addBatch":
+                    batchSize++;
+                    return invokeTarget(target, method, args);
+                case "executeQuery": {
+                    finishPendingQuery();
+                    DatabaseStatementEvent event = begin(args, "query");
+                    try {
+                        ResultSet rs = (ResultSet) invokeTarget(target, method, args);
+                        pendingQuery = event;
+                        return Proxy.newProxyInstance(StatementEvents.class.getClassLoader(),
+                                new Class<?>[] { ResultSet.class }, new ResultSetHandler(rs, this));
+                    } catch (Throwable t) {
+                        event.rowCount = -1;
+                        event.commit();
+                        throw t;
+                    }
+                }
+                case "execute":
+                case "executeUpdate":
+                case "executeLargeUpdate": {
+                    DatabaseStatementEvent event = begin(args, "update");
+                    event.rowCount = -1;
+                    try {
+                        Object result = invokeTarget(target, method, args);
+                        if (result instanceof Number) {
+                            event.rowCount = ((Number) result).longValue();
+                        }
+                        return result;
+                    } finally {
+                        event.commit();
+                    }
+                }
+                case "executeBatch": {
+                    DatabaseStatementEvent event = begin(args, "batch");
+                    event.batchSize = batchSize;
+                    event.rowCount = -1;
+                    try {
+                        int[] counts = (int[]) invokeTarget(target, method, args);
+                        long rows = 0;
+                        for (int count : counts) {
+                            rows += Math.max(count, 0);
+                        }
+                        event.rowCount = rows;
+                        return counts;
+                    } finally {
+                        batchSize = 0;
+                        event.commit();
+                    }
+                }
+                case "close":
+                    finishPendingQuery();
+                    return invokeTarget(target, method, args);
+                default:
+                    return invokeTarget(target, method, args);
+            }
+        }
+
+        private DatabaseStatementEvent begin(Object[] args, String kind) {
+            DatabaseStatementEvent event = new DatabaseStatementEvent();
+            event.sql = (args != null && args.length > 0 && args[0] instanceof String) ? (String) args[0]
+                    : preparedSql;
+            event.kind = kind;
+            event.begin();
+            return event;
+        }
+
+        void finishPendingQuery() {
+            if (pendingQuery != null) {
+                pendingQuery.commit();
+                pendingQuery = null;
+            }
+        }
+    }
+
+    private static class ResultSetHandler implements InvocationHandler {
+        private final ResultSet target;
+        private final StatementHandler owner;
+
+        ResultSetHandler(ResultSet target, StatementHandler owner) {
+            this.target = target;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("close")) {
+                owner.finishPendingQuery();
+                return invokeTarget(target, method, args);
+            }
+            Object result = invokeTarget(target, method, args);
+            if (name.equals("next") && owner.pendingQuery != null) {
+                if (Boolean.TRUE.equals(result)) {
+                    owner.pendingQuery.rowCount++;
+                } else {
+                    owner.finishPendingQuery();
+                }
+            }
+            return result;
+        }
+    }
+}
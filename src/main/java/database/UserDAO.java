@@ -81,6 +81,37 @@ public class UserDAO {
         return users;
     }
 
+    /**
+     * One page of getAllUsers in email order. Pass the last email of the
+     * previous page as afterEmail (null for the first page).
+     */
+    public List<User> getUsersPage(String afterEmail, int limit) {
+        List<User> users = new ArrayList<>(limit);
+        String sql = "SELECT user_email, role FROM users WHERE is_active = TRUE"
+                + (afterEmail != null ? " AND user_email > ?" : "")
+                + " ORDER BY user_email LIMIT ?";
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            if (afterEmail != null) {
+                stmt.setString(index++, afterEmail);
+            }
+            stmt.setInt(index, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    users.add(new User(rs.getString(1), rs.getString(2)));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error retrieving users page: " + e.getMessage());
+        }
+
+        return users;
+    }
+
     /**
      * Updates user role
      */
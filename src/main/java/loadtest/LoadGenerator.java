@@ -0,0 +1,155 @@
+package main.java.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import main.java.metrics.LatencyHistogram;
+
+/**
+ * Headless load generator for ThinkLinkServer. Starts N simulated users on
+ * localhost that log in, join a board and emit a mix of add_box, update_box,
+ * drag streams and add_connection at a fixed per-user rate, then reports
+ * throughput and end-to-end broadcast latency (origin send to receipt at
+ * every other client on the board).
+ */
+public class LoadGenerator {
+    private static final long DRAIN_MILLIS = 2000;
+
+    private final LoadTestConfig config;
+    private final LoadStats stats = new LoadStats();
+    private final List<SimulatedUser> users = new ArrayList<>();
+    private final ScheduledExecutorService scheduler;
+
+    LoadGenerator(LoadTestConfig config) {
+        this.config = config;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()),
+                r -> {
+                    Thread t = new Thread(r, "loadtest-scheduler-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    public static void main(String[] args) {
+        LoadTestConfig config;
+        try {
+            config = LoadTestConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            if (!"help".equals(e.getMessage())) {
+                System.err.println("LoadGenerator: " + e.getMessage());
+            }
+            System.err.println(LoadTestConfig.usage());
+            System.exit(1);
+            return;
+        }
+        new LoadGenerator(config).run();
+        System.exit(0);
+    }
+
+    void run() {
+        System.out.println("LoadGenerator: " + config.users + " users on localhost:" + config.port + ", board "
+                + config.boardId + ", " + config.opsPerUserPerSecond + " ops/user/s for " + config.durationSeconds
+                + "s, mix " + config.mix);
+
+        long periodMicros = (long) (1_000_000 / config.opsPerUserPerSecond);
+        long rampStepMicros = config.users > 1
+                ? TimeUnit.SECONDS.toMicros(config.rampUpSeconds) / config.users
+                : 0;
+        List<ScheduledFuture<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < config.users; i++) {
+            SimulatedUser user = new SimulatedUser(i, config, stats);
+            if (!user.connect()) {
+                stats.errors.increment();
+                continue;
+            }
+            stats.connectedUsers.increment();
+            users.add(user);
+            tasks.add(scheduler.scheduleAtFixedRate(() -> user.emitOperation(scheduler),
+                    rampStepMicros * i, periodMicros, TimeUnit.MICROSECONDS));
+        }
+        System.out.println("LoadGenerator: Connected " + stats.connectedUsers.sum() + "/" + config.users + " users");
+
+        long startNanos = System.nanoTime();
+        ScheduledFuture<?> reporter = scheduler.scheduleAtFixedRate(new ProgressReporter(startNanos),
+                config.reportIntervalSeconds, config.reportIntervalSeconds, TimeUnit.SECONDS);
+        try {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(config.durationSeconds));
+            tasks.forEach(task -> task.cancel(false));
+            reporter.cancel(false);
+            long sendElapsedNanos = System.nanoTime() - startNanos;
+            // Let in-flight drags and broadcasts arrive before reporting
+            Thread.sleep(DRAIN_MILLIS);
+            printReport(sendElapsedNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            users.forEach(SimulatedUser::disconnect);
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void printReport(long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        LatencyHistogram latency = stats.broadcastLatency;
+        System.out.println();
+        System.out.println("=== ThinkLink load test results ===");
+        System.out.printf("Users connected:     %d/%d%n", stats.connectedUsers.sum(), config.users);
+        System.out.printf("Duration:            %.1f s%n", seconds);
+        System.out.printf("Operations sent:     %d (%.1f ops/s)%n", stats.sent.sum(), stats.sent.sum() / seconds);
+        for (Map.Entry<String, LongAdder> entry : stats.sentByOperation.entrySet()) {
+            System.out.printf("  %-8s           %d%n", entry.getKey(), entry.getValue().sum());
+        }
+        System.out.printf("Messages received:   %d (%.1f msg/s)%n", stats.received.sum(),
+                stats.received.sum() / seconds);
+        System.out.printf("Broadcasts measured: %d%n", latency.getCount());
+        if (latency.getCount() > 0) {
+            System.out.printf("Broadcast latency:   mean %.3f ms, p50 %.3f ms, p99 %.3f ms, p999 %.3f ms%n",
+                    latency.getSumSeconds() * 1000 / latency.getCount(),
+                    latency.getQuantileSeconds(0.50) * 1000,
+                    latency.getQuantileSeconds(0.99) * 1000,
+                    latency.getQuantileSeconds(0.999) * 1000);
+        }
+        System.out.printf("Errors:              %d%n", stats.errors.sum());
+    }
+
+    /**
+     * Prints throughput since the previous report and cumulative latency
+     */
+    private class ProgressReporter implements Runnable {
+        private final long startNanos;
+        private long lastNanos;
+        private long lastSent;
+        private long lastReceived;
+
+        ProgressReporter(long startNanos) {
+            this.startNanos = startNanos;
+            this.lastNanos = startNanos;
+        }
+
+        @Override
+        public void run() {
+            long now = System.nanoTime();
+            long sent = stats.sent.sum();
+            long received = stats.received.sum();
+            double interval = (now - lastNanos) / 1_000_000_000.0;
+            LatencyHistogram latency = stats.broadcastLatency;
+            System.out.printf("[%5.0fs] sent %.1f ops/s, received %.1f msg/s, p50 %.3f ms, p99 %.3f ms, p999 %.3f ms%n",
+                    (now - startNanos) / 1_000_000_000.0,
+                    (sent - lastSent) / interval,
+                    (received - lastReceived) / interval,
+                    latency.getQuantileSeconds(0.50) * 1000,
+                    latency.getQuantileSeconds(0.99) * 1000,
+                    latency.getQuantileSeconds(0.999) * 1000);
+            lastNanos = now;
+            lastSent = sent;
+            lastReceived = received;
+        }
+    }
+}
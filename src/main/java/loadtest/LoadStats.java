@@ -0,0 +1,34 @@
+package main.java.loadtest;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import main.java.metrics.LatencyHistogram;
+
+/**
+ * Counters and the broadcast latency histogram shared by all simulated users
+ */
+class LoadStats {
+    // 10us to ~100s in 5% steps, so p999 stays meaningful on localhost
+    final LatencyHistogram broadcastLatency = new LatencyHistogram(
+            LatencyHistogram.exponentialBounds(0.00001, 1.05, 330));
+    final LongAdder sent = new LongAdder();
+    final LongAdder received = new LongAdder();
+    final LongAdder tracedReceived = new LongAdder();
+    final LongAdder errors = new LongAdder();
+    final LongAdder connectedUsers = new LongAdder();
+    final Map<String, LongAdder> sentByOperation = new ConcurrentHashMap<>();
+
+    void recordSent(String operation) {
+        sent.increment();
+        sentByOperation.computeIfAbsent(operation, k -> new LongAdder()).increment();
+    }
+
+    void recordReceived(long clientSentMicros, long receivedMicros) {
+        received.increment();
+        if (clientSentMicros > 0) {
+            tracedReceived.increment();
+            broadcastLatency.observeNanos((receivedMicros - clientSentMicros) * 1000L);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package main.java.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command line options for the LoadGenerator
+ */
+public class LoadTestConfig {
+    public static final String OP_ADD = "add";
+    public static final String OP_UPDATE = "update";
+    public static final String OP_DRAG = "drag";
+    public static final String OP_CONNECT = "connect";
+
+    int port = 9876;
+    int users = 100;
+    String boardId = "shared-global-board";
+    int durationSeconds = 60;
+    int rampUpSeconds = 10;
+    double opsPerUserPerSecond = 1.0;
+    int dragSteps = 20;
+    int dragIntervalMs = 16;
+    int reportIntervalSeconds = 5;
+    // Relative weights of each operation type
+    final Map<String, Integer> mix = new LinkedHashMap<>();
+
+    LoadTestConfig() {
+        mix.put(OP_ADD, 10);
+        mix.put(OP_UPDATE, 50);
+        mix.put(OP_DRAG, 30);
+        mix.put(OP_CONNECT, 10);
+    }
+
+    static LoadTestConfig parse(String[] args) {
+        LoadTestConfig config = new LoadTestConfig();
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("--help") || option.equals("-h")) {
+                throw new IllegalArgumentException("help");
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--port":
+                    config.port = Integer.parseInt(value);
+                    break;
+                case "--users":
+                    config.users = Integer.parseInt(value);
+                    break;
+                case "--board":
+                    config.boardId = value;
+                    break;
+                case "--duration":
+                    config.durationSeconds = Integer.parseInt(value);
+                    break;
+                case "--ramp-up":
+                    config.rampUpSeconds = Integer.parseInt(value);
+                    break;
+                case "--rate":
+                    config.opsPerUserPerSecond = Double.parseDouble(value);
+                    break;
+                case "--drag-steps":
+                    config.dragSteps = Integer.parseInt(value);
+                    break;
+                case "--drag-interval-ms":
+                    config.dragIntervalMs = Integer.parseInt(value);
+                    break;
+                case "--report-interval":
+                    config.reportIntervalSeconds = Integer.parseInt(value);
+                    break;
+                case "--mix":
+                    config.parseMix(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+        if (config.users <= 0 || config.opsPerUserPerSecond <= 0 || config.durationSeconds <= 0) {
+            throw new IllegalArgumentException("--users, --rate and --duration must be positive");
+        }
+        return config;
+    }
+
+    // Format: add=10,update=50,drag=30,connect=10
+    private void parseMix(String value) {
+        mix.replaceAll((op, weight) -> 0);
+        for (String part : value.split(",")) {
+            String[] kv = part.trim().split("=");
+            if (kv.length != 2 || !mix.containsKey(kv[0])) {
+                throw new IllegalArgumentException("Invalid --mix entry '" + part + "'");
+            }
+            mix.put(kv[0], Integer.parseInt(kv[1]));
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("--mix weights must not all be zero");
+        }
+    }
+
+    /**
+     * Maps a uniform random number in [0, totalWeight) to an operation name
+     */
+    String pickOperation(int roll) {
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        return OP_UPDATE;
+    }
+
+    int totalWeight() {
+        return mix.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    static String usage() {
+        return String.join("\n",
+                "Usage: java main.java.loadtest.LoadGenerator [options]",
+                "  --port N               ThinkLinkServer port on localhost (default 9876)",
+                "  --users N              simulated users (default 100)",
+                "  --board ID             board to join (default shared-global-board)",
+                "  --duration S           seconds to generate load (default 60)",
+                "  --ramp-up S            seconds over which users start (default 10)",
+                "  --rate R               operations per user per second (default 1.0)",
+                "  --mix SPEC             weights, e.g. add=10,update=50,drag=30,connect=10",
+                "  --drag-steps N         update_box messages per drag stream (default 20)",
+                "  --drag-interval-ms N   delay between drag steps (default 16)",
+                "  --report-interval S    progress report period (default 5)",
+                "",
+                "The server persists every operation to its shared board file. Start it with",
+                "-Duser.home=<scratch dir> so a load run does not touch the real board.");
+    }
+}
@@ -0,0 +1,209 @@
+package main.java.loadtest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import main.java.metrics.OperationTrace;
+import main.java.network.ServerConnection;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * One headless board client. Speaks the same protocol as BoardPanel through a
+ * ServerConnection that handles messages on its listener thread instead of
+ * the EDT, and stamps every operation with an OperationTrace so receivers can
+ * measure broadcast latency.
+ */
+class SimulatedUser implements ServerConnection.MessageHandler {
+    private static final int CANVAS_WIDTH = 2000;
+    private static final int CANVAS_HEIGHT = 1500;
+
+    private final String userEmail;
+    private final LoadTestConfig config;
+    private final LoadStats stats;
+    private final ServerConnection connection;
+    // Box ids this user has seen on the board, used to target updates and connections
+    private final List<Integer> boxIds = new ArrayList<>();
+    private final Set<Integer> boxIdSet = new HashSet<>();
+    private volatile boolean ready = false;
+
+    SimulatedUser(int index, LoadTestConfig config, LoadStats stats) {
+        this.userEmail = "loadtest-user-" + index + "@thinklink.local";
+        this.config = config;
+        this.stats = stats;
+        this.connection = new ServerConnection(this, Runnable::run);
+    }
+
+    boolean connect() {
+        if (!connection.connect("localhost", config.port, userEmail, "user")) {
+            return false;
+        }
+        JSONObject join = new JSONObject();
+        join.put("type", "join_board");
+        join.put("boardId", config.boardId);
+        connection.sendMessage(join);
+        return true;
+    }
+
+    void disconnect() {
+        ready = false;
+        connection.disconnect();
+    }
+
+    @Override
+    public void handleMessage(JSONObject message) {
+        stats.recordReceived(message.optLong(OperationTrace.CLIENT_SENT, 0),
+                message.optLong(OperationTrace.CLIENT_RECEIVED, OperationTrace.nowMicros()));
+        switch (message.optString("type")) {
+            case "initial_board_state":
+                JSONArray boxes = message.optJSONObject("boardState") != null
+                        ? message.getJSONObject("boardState").optJSONArray("boxes")
+                        : null;
+                if (boxes != null) {
+                    for (int i = 0; i < boxes.length(); i++) {
+                        addBoxId(boxes.getJSONObject(i).optInt("id", -1));
+                    }
+                }
+                ready = true;
+                break;
+            case "add_box":
+                addBoxId(message.optInt("boxId", -1));
+                break;
+            case "delete_box":
+                removeBoxId(message.optInt("boxId", -1));
+                break;
+            case "error_initial_board_state":
+                stats.errors.increment();
+                System.err.println("SimulatedUser (" + userEmail + "): " + message.optString("error"));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Sends one operation picked from the configured mix. Called at the
+     * configured rate from the shared scheduler.
+     */
+    void emitOperation(ScheduledExecutorService scheduler) {
+        if (!ready) {
+            return;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String operation = config.pickOperation(random.nextInt(config.totalWeight()));
+        Integer boxId = randomBoxId();
+        // Nothing to update or connect yet, so grow the board instead
+        if (boxId == null && !operation.equals(LoadTestConfig.OP_ADD)) {
+            operation = LoadTestConfig.OP_ADD;
+        }
+        try {
+            switch (operation) {
+                case LoadTestConfig.OP_ADD:
+                    sendAddBox(random);
+                    break;
+                case LoadTestConfig.OP_UPDATE:
+                    sendUpdateBox(boxId, random.nextInt(CANVAS_WIDTH), random.nextInt(CANVAS_HEIGHT),
+                            LoadTestConfig.OP_UPDATE);
+                    break;
+                case LoadTestConfig.OP_DRAG:
+                    startDrag(scheduler, boxId, random);
+                    break;
+                case LoadTestConfig.OP_CONNECT:
+                    sendAddConnection(boxId, randomBoxId());
+                    break;
+                default:
+                    break;
+            }
+        } catch (Exception e) {
+            stats.errors.increment();
+            System.err.println("SimulatedUser (" + userEmail + "): Error sending " + operation + ": " + e.getMessage());
+        }
+    }
+
+    private void sendAddBox(ThreadLocalRandom random) {
+        JSONObject msg = new JSONObject();
+        msg.put("type", "client_request_add_box");
+        msg.put("boardId", config.boardId);
+        msg.put("userEmail", userEmail);
+        msg.put("title", "Load box");
+        msg.put("content", "Created by " + userEmail);
+        msg.put("x", random.nextInt(CANVAS_WIDTH));
+        msg.put("y", random.nextInt(CANVAS_HEIGHT));
+        send(msg, LoadTestConfig.OP_ADD);
+    }
+
+    private void sendUpdateBox(int boxId, int x, int y, String operation) {
+        JSONObject msg = new JSONObject();
+        msg.put("type", "update_box");
+        msg.put("boardId", config.boardId);
+        msg.put("userEmail", userEmail);
+        msg.put("boxId", boxId);
+        msg.put("title", "Load box " + boxId);
+        msg.put("content", "Moved by " + userEmail);
+        msg.put("x", x);
+        msg.put("y", y);
+        send(msg, operation);
+    }
+
+    /**
+     * Simulates dragging a box: a burst of update_box messages along a straight
+     * line, spaced like mouse-drag events
+     */
+    private void startDrag(ScheduledExecutorService scheduler, int boxId, ThreadLocalRandom random) {
+        int startX = random.nextInt(CANVAS_WIDTH);
+        int startY = random.nextInt(CANVAS_HEIGHT);
+        int dx = random.nextInt(-10, 11);
+        int dy = random.nextInt(-10, 11);
+        for (int step = 0; step < config.dragSteps; step++) {
+            int x = startX + dx * step;
+            int y = startY + dy * step;
+            scheduler.schedule(() -> {
+                if (ready) {
+                    sendUpdateBox(boxId, x, y, LoadTestConfig.OP_DRAG);
+                }
+            }, (long) step * config.dragIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void sendAddConnection(int sourceBoxId, Integer targetBoxId) {
+        if (targetBoxId == null || targetBoxId == sourceBoxId) {
+            return;
+        }
+        JSONObject msg = new JSONObject();
+        msg.put("type", "add_connection");
+        msg.put("boardId", config.boardId);
+        msg.put("userEmail", userEmail);
+        msg.put("sourceBoxId", sourceBoxId);
+        msg.put("targetBoxId", targetBoxId);
+        send(msg, LoadTestConfig.OP_CONNECT);
+    }
+
+    private void send(JSONObject msg, String operation) {
+        OperationTrace.start(msg);
+        connection.sendMessage(msg);
+        stats.recordSent(operation);
+    }
+
+    private synchronized void addBoxId(int boxId) {
+        if (boxId >= 0 && boxIdSet.add(boxId)) {
+            boxIds.add(boxId);
+        }
+    }
+
+    private synchronized void removeBoxId(int boxId) {
+        if (boxIdSet.remove(boxId)) {
+            boxIds.remove(Integer.valueOf(boxId));
+        }
+    }
+
+    private synchronized Integer randomBoxId() {
+        if (boxIds.isEmpty()) {
+            return null;
+        }
+        return boxIds.get(ThreadLocalRandom.current().nextInt(boxIds.size()));
+    }
+}
@@ -0,0 +1,121 @@
+package main.java.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket latency histogram. Bucket bounds are expressed in seconds to
+ * match the Prometheus convention, observations are recorded in nanoseconds.
+ * Recording is lock-free so it can be called from every handler thread.
+ */
+public class LatencyHistogram {
+    public static final double[] DEFAULT_BUCKETS = {
+            0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025,
+            0.05, 0.1, 0.25, 0.5, 1.0, 2.5, 5.0, 10.0
+    };
+
+    private final double[] bounds;
+    private final long[] boundsNanos;
+    // One slot per bound plus a final +Inf slot; counts are NOT cumulative
+    private final LongAdder[] buckets;
+    private final LongAdder sumNanos = new LongAdder();
+    private final LongAdder count = new LongAdder();
+
+    public LatencyHistogram() {
+        this(DEFAULT_BUCKETS);
+    }
+
+    public LatencyHistogram(double[] bounds) {
+        this.bounds = bounds.clone();
+        this.boundsNanos = new long[bounds.length];
+        for (int i = 0; i < bounds.length; i++) {
+            boundsNanos[i] = (long) (bounds[i] * 1_000_000_000L);
+        }
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Geometric bucket bounds for fine-grained percentiles, e.g. a factor of
+     * 1.05 keeps every reported quantile within 5% of the true value
+     */
+    public static double[] exponentialBounds(double startSeconds, double factor, int count) {
+        double[] bounds = new double[count];
+        double bound = startSeconds;
+        for (int i = 0; i < count; i++) {
+            bounds[i] = bound;
+            bound *= factor;
+        }
+        return bounds;
+    }
+
+    /**
+     * Records a single observation
+     */
+    public void observeNanos(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        // Index of the first bound >= nanos, or bounds.length for +Inf
+        int i = Arrays.binarySearch(boundsNanos, nanos);
+        if (i < 0) {
+            i = -i - 1;
+        }
+        buckets[i].increment();
+        sumNanos.add(nanos);
+        count.increment();
+    }
+
+    /**
+     * Records the time elapsed since a System.nanoTime() start mark
+     */
+    public void observeSince(long startNanos) {
+        observeNanos(System.nanoTime() - startNanos);
+    }
+
+    public double[] getBounds() {
+        return bounds.clone();
+    }
+
+    /**
+     * Cumulative bucket counts, last element is the +Inf bucket
+     */
+    public long[] getCumulativeCounts() {
+        long[] cumulative = new long[buckets.length];
+        long running = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            running += buckets[i].sum();
+            cumulative[i] = running;
+        }
+        return cumulative;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getSumSeconds() {
+        return sumNanos.sum() / 1_000_000_000.0;
+    }
+
+    /**
+     * Estimates a quantile as the upper bound of the bucket that contains it.
+     * Returns the last finite bound when the quantile falls into +Inf.
+     */
+    public double getQuantileSeconds(double quantile) {
+        long[] cumulative = getCumulativeCounts();
+        long total = cumulative[cumulative.length - 1];
+        if (total == 0) {
+            return 0.0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        for (int i = 0; i < bounds.length; i++) {
+            if (cumulative[i] >= rank) {
+                return bounds[i];
+            }
+        }
+        return bounds[bounds.length - 1];
+    }
+}
@@ -0,0 +1,235 @@
+package main.java.metrics;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide registry of counters, gauges and latency histograms.
+ * Each metric family has at most one label, which covers everything
+ * ThinkLink needs (message type, board id, pipeline stage, ...).
+ * Output is rendered in the Prometheus text exposition format.
+ */
+public class MetricsRegistry {
+    private static MetricsRegistry instance;
+
+    // Sorted by name so scrapes are stable and easy to diff
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    private MetricsRegistry() {
+    }
+
+    public static synchronized MetricsRegistry getInstance() {
+        if (instance == null) {
+            instance = new MetricsRegistry();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the counter family with the given name, creating it on first use
+     */
+    public Counter counter(String name, String help, String labelName) {
+        return (Counter) families.computeIfAbsent(name, n -> new Counter(n, help, labelName));
+    }
+
+    /**
+     * Returns the histogram family with the given name, creating it on first use
+     */
+    public Histogram histogram(String name, String help, String labelName) {
+        return (Histogram) families.computeIfAbsent(name, n -> new Histogram(n, help, labelName));
+    }
+
+    /**
+     * Registers an unlabeled gauge whose value is read at scrape time
+     */
+    public void gauge(String name, String help, Supplier<? extends Number> supplier) {
+        families.put(name, new Gauge(name, help, null,
+                () -> Collections.singletonMap("", supplier.get())));
+    }
+
+    /**
+     * Registers a labeled gauge; the supplier returns one value per label value
+     */
+    public void gauge(String name, String help, String labelName,
+            Supplier<Map<String, ? extends Number>> supplier) {
+        families.put(name, new Gauge(name, help, labelName, supplier));
+    }
+
+    /**
+     * Renders every registered metric in Prometheus text format
+     */
+    public String scrape() {
+        StringBuilder sb = new StringBuilder(4096);
+        for (Family family : families.values()) {
+            sb.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            sb.append("# TYPE ").append(family.name).append(' ').append(family.type()).append('\n');
+            family.write(sb);
+        }
+        return sb.toString();
+    }
+
+    private static String labels(String labelName, String labelValue) {
+        if (labelName == null) {
+            return "";
+        }
+        return "{" + labelName + "=\"" + escape(labelValue) + "\"}";
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return BigDecimal.valueOf(value).toPlainString();
+    }
+
+    private abstract static class Family {
+        final String name;
+        final String help;
+        final String labelName;
+
+        Family(String name, String help, String labelName) {
+            this.name = name;
+            this.help = help;
+            this.labelName = labelName;
+        }
+
+        abstract String type();
+
+        abstract void write(StringBuilder sb);
+    }
+
+    /**
+     * Monotonic counter, optionally split by one label
+     */
+    public static class Counter extends Family {
+        private final Map<String, LongAdder> values = new ConcurrentHashMap<>();
+
+        Counter(String name, String help, String labelName) {
+            super(name, help, labelName);
+        }
+
+        public void inc(String labelValue) {
+            add(labelValue, 1);
+        }
+
+        public void add(String labelValue, long amount) {
+            values.computeIfAbsent(labelValue == null ? "" : labelValue, k -> new LongAdder()).add(amount);
+        }
+
+        public long get(String labelValue) {
+            LongAdder adder = values.get(labelValue == null ? "" : labelValue);
+            return adder != null ? adder.sum() : 0;
+        }
+
+        @Override
+        String type() {
+            return "counter";
+        }
+
+        @Override
+        void write(StringBuilder sb) {
+            for (Map.Entry<String, LongAdder> entry : new ConcurrentSkipListMap<>(values).entrySet()) {
+                sb.append(name).append(labels(labelName, entry.getKey()))
+                        .append(' ').append(entry.getValue().sum()).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Latency histogram family, optionally split by one label
+     */
+    public static class Histogram extends Family {
+        private final Map<String, LatencyHistogram> values = new ConcurrentHashMap<>();
+
+        Histogram(String name, String help, String labelName) {
+            super(name, help, labelName);
+        }
+
+        public LatencyHistogram get(String labelValue) {
+            return values.computeIfAbsent(labelValue == null ? "" : labelValue, k -> new LatencyHistogram());
+        }
+
+        public void observeNanos(String labelValue, long nanos) {
+            get(labelValue).observeNanos(nanos);
+        }
+
+        public void observeSince(String labelValue, long startNanos) {
+            get(labelValue).observeSince(startNanos);
+        }
+
+        @Override
+        String type() {
+            return "histogram";
+        }
+
+        @Override
+        void write(StringBuilder sb) {
+            for (Map.Entry<String, LatencyHistogram> entry : new ConcurrentSkipListMap<>(values).entrySet()) {
+                LatencyHistogram histogram = entry.getValue();
+                String labelPrefix = labelName != null
+                        ? labelName + "=\"" + escape(entry.getKey()) + "\","
+                        : "";
+                double[] bounds = histogram.getBounds();
+                long[] cumulative = histogram.getCumulativeCounts();
+                for (int i = 0; i < bounds.length; i++) {
+                    sb.append(name).append("_bucket{").append(labelPrefix)
+                            .append("le=\"").append(BigDecimal.valueOf(bounds[i]).toPlainString()).append("\"} ")
+                            .append(cumulative[i]).append('\n');
+                }
+                sb.append(name).append("_bucket{").append(labelPrefix).append("le=\"+Inf\"} ")
+                        .append(cumulative[cumulative.length - 1]).append('\n');
+                sb.append(name).append("_sum").append(labels(labelName, entry.getKey()))
+                        .append(' ').append(BigDecimal.valueOf(histogram.getSumSeconds()).toPlainString()).append('\n');
+                sb.append(name).append("_count").append(labels(labelName, entry.getKey()))
+                        .append(' ').append(cumulative[cumulative.length - 1]).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Gauge sampled at scrape time
+     */
+    private static class Gauge extends Family {
+        private final Supplier<Map<String, ? extends Number>> supplier;
+
+        Gauge(String name, String help, String labelName, Supplier<Map<String, ? extends Number>> supplier) {
+            super(name, help, labelName);
+            this.supplier = supplier;
+        }
+
+        @Override
+        String type() {
+            return "gauge";
+        }
+
+        @Override
+        void write(StringBuilder sb) {
+            Map<String, ? extends Number> current;
+            try {
+                current = supplier.get();
+            } catch (Exception e) {
+                System.err.println("MetricsRegistry: Error sampling gauge " + name + ": " + e.getMessage());
+                return;
+            }
+            if (current == null) {
+                return;
+            }
+            for (Map.Entry<String, ? extends Number> entry : current.entrySet()) {
+                sb.append(name).append(labels(labelName, entry.getKey()))
+                        .append(' ').append(format(entry.getValue().doubleValue())).append('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package main.java.metrics;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONObject;
+
+/**
+ * End-to-end tracing for board operations. The originating BoardPanel stamps
+ * a trace id and send time on each message, the server adds its receive and
+ * send times before broadcasting, and receiving clients add their socket
+ * receive time and record when the change was applied on the EDT.
+ *
+ * Timestamps are wall-clock epoch microseconds, so cross-host hops are only
+ * as accurate as the clock sync between machines (exact on localhost).
+ */
+public final class OperationTrace {
+    public static final String TRACE_ID = "traceId";
+    public static final String CLIENT_SENT = "clientSentMicros";
+    public static final String SERVER_RECEIVED = "serverReceivedMicros";
+    public static final String SERVER_SENT = "serverSentMicros";
+    // Only ever set locally on the receiving client, never sent on the wire
+    public static final String CLIENT_RECEIVED = "clientReceivedMicros";
+
+    public static final String HOP_CLIENT_TO_SERVER = "client_to_server";
+    public static final String HOP_SERVER_APPLY = "server_apply";
+    public static final String HOP_SERVER_PROCESSING = "server_receive_to_send";
+    public static final String HOP_SERVER_TO_CLIENT = "server_to_client";
+    public static final String HOP_CLIENT_APPLY = "client_receive_to_apply";
+    public static final String HOP_END_TO_END = "end_to_end";
+
+    public static final MetricsRegistry.Histogram HOP_LATENCY = MetricsRegistry.getInstance().histogram(
+            "thinklink_trace_hop_latency_seconds", "Latency of traced board operations per hop", "hop");
+
+    private OperationTrace() {
+    }
+
+    public static long nowMicros() {
+        Instant now = Instant.now();
+        return TimeUnit.SECONDS.toMicros(now.getEpochSecond()) + now.getNano() / 1000;
+    }
+
+    public static boolean isTraced(JSONObject message) {
+        return message != null && message.has(TRACE_ID);
+    }
+
+    /**
+     * Called by the originating client just before the message is sent
+     */
+    public static void start(JSONObject message) {
+        message.put(TRACE_ID, Long.toHexString(ThreadLocalRandom.current().nextLong()));
+        message.put(CLIENT_SENT, nowMicros());
+    }
+
+    /**
+     * Called by the server as soon as a traced message has been parsed
+     */
+    public static void markServerReceived(JSONObject message, long receivedMicros) {
+        if (!isTraced(message)) {
+            return;
+        }
+        message.put(SERVER_RECEIVED, receivedMicros);
+        recordHop(HOP_CLIENT_TO_SERVER, receivedMicros - message.optLong(CLIENT_SENT, receivedMicros));
+    }
+
+    /**
+     * Records how long the server spent applying a traced message to its state
+     */
+    public static void recordServerApply(JSONObject message, long applyStartNanos) {
+        if (isTraced(message)) {
+            HOP_LATENCY.observeSince(HOP_SERVER_APPLY, applyStartNanos);
+        }
+    }
+
+    /**
+     * Called by the server right before broadcasting. Copies the trace from the
+     * incoming message onto the outgoing one (they may be the same object).
+     */
+    public static void markServerSent(JSONObject outgoing, JSONObject incoming) {
+        if (!isTraced(incoming)) {
+            return;
+        }
+        long sentMicros = nowMicros();
+        if (outgoing != incoming) {
+            outgoing.put(TRACE_ID, incoming.getString(TRACE_ID));
+            outgoing.put(CLIENT_SENT, incoming.optLong(CLIENT_SENT));
+            outgoing.put(SERVER_RECEIVED, incoming.optLong(SERVER_RECEIVED));
+        }
+        outgoing.put(SERVER_SENT, sentMicros);
+        recordHop(HOP_SERVER_PROCESSING, sentMicros - incoming.optLong(SERVER_RECEIVED, sentMicros));
+    }
+
+    /**
+     * Called by a receiving client with the time the line came off the socket
+     */
+    public static void markClientReceived(JSONObject message, long receivedMicros) {
+        if (!isTraced(message)) {
+            return;
+        }
+        message.put(CLIENT_RECEIVED, receivedMicros);
+        if (message.has(SERVER_SENT)) {
+            recordHop(HOP_SERVER_TO_CLIENT, receivedMicros - message.getLong(SERVER_SENT));
+        }
+    }
+
+    /**
+     * Called by a receiving client on the EDT once the change is in its model
+     */
+    public static void markApplied(JSONObject message) {
+        if (!isTraced(message)) {
+            return;
+        }
+        long appliedMicros = nowMicros();
+        if (message.has(CLIENT_RECEIVED)) {
+            recordHop(HOP_CLIENT_APPLY, appliedMicros - message.getLong(CLIENT_RECEIVED));
+        }
+        if (message.has(CLIENT_SENT)) {
+            recordHop(HOP_END_TO_END, appliedMicros - message.getLong(CLIENT_SENT));
+        }
+    }
+
+    private static void recordHop(String hop, long micros) {
+        HOP_LATENCY.observeNanos(hop, TimeUnit.MICROSECONDS.toNanos(Math.max(0, micros)));
+    }
+}
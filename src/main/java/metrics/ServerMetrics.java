@@ -0,0 +1,97 @@
+package main.java.metrics;
+
+import java.util.Set;
+
+/**
+ * Metric families recorded by the ThinkLink server and its persistence layer.
+ * Declared once here so every call site shares the same names and help text.
+ */
+public final class ServerMetrics {
+    public static final String STAGE_PARSE = "parse";
+    public static final String STAGE_APPLY = "apply";
+    public static final String STAGE_BROADCAST = "broadcast";
+
+    public static final MetricsRegistry.Counter MESSAGES_IN = MetricsRegistry.getInstance().counter(
+            "thinklink_messages_in_total", "Messages received from clients by message type", "type");
+
+    public static final MetricsRegistry.Counter MESSAGES_OUT = MetricsRegistry.getInstance().counter(
+            "thinklink_messages_out_total", "Messages written to clients by message type", "type");
+
+    public static final MetricsRegistry.Counter FANOUT_DELIVERIES = MetricsRegistry.getInstance().counter(
+            "thinklink_fanout_deliveries_total", "Messages delivered by board broadcasts, per board", "board");
+
+    public static final MetricsRegistry.Counter BROADCASTS = MetricsRegistry.getInstance().counter(
+            "thinklink_broadcasts_total", "Board broadcasts performed, per board", "board");
+
+    public static final MetricsRegistry.Histogram HANDLER_LATENCY = MetricsRegistry.getInstance().histogram(
+            "thinklink_handler_latency_seconds", "Client message handling latency by pipeline stage", "stage");
+
+    public static final MetricsRegistry.Histogram PERSISTENCE_LATENCY = MetricsRegistry.getInstance().histogram(
+            "thinklink_persistence_latency_seconds", "SharedState board file load/save latency", "operation");
+
+    // Message types the client and server send; anything else a client puts
+    // in "type" is labelled "other" so it can't create new time series
+    private static final Set<String> KNOWN_MESSAGE_TYPES = Set.of("login", "login_confirmed", "join_board",
+            "initial_board_state", "error_initial_board_state", "client_request_add_box", "add_box", "update_box",
+            "delete_box", "add_connection", "delete_connection", "goal_update", "user_disconnected", "unknown");
+
+    private ServerMetrics() {
+    }
+
+    /**
+     * Bounded label value for a message type
+     */
+    public static String typeLabel(String type) {
+        return KNOWN_MESSAGE_TYPES.contains(type) ? type : "other";
+    }
+
+    /**
+     * Extracts the top-level "type" of an outgoing JSON message without
+     * re-parsing it. Nested objects such as boardState or box payloads can
+     * carry their own "type", so the scan skips over strings and only
+     * matches the key at the first nesting level.
+     */
+    public static String messageType(String json) {
+        if (json == null) {
+            return "unknown";
+        }
+        int depth = 0;
+        int length = json.length();
+        for (int i = 0; i < length; i++) {
+            char c = json.charAt(i);
+            if (c == '"') {
+                int end = closingQuote(json, i + 1);
+                if (end < 0) {
+                    return "unknown";
+                }
+                // Only a key can be followed by ":", so this is the top-level "type" key
+                if (depth == 1 && end == i + 5 && json.startsWith("type\":\"", i + 1)) {
+                    int valueEnd = closingQuote(json, i + 8);
+                    return valueEnd > i + 8 ? json.substring(i + 8, valueEnd) : "unknown";
+                }
+                i = end;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+            }
+        }
+        return "unknown";
+    }
+
+    /**
+     * Index of the quote closing a JSON string whose contents start at from,
+     * or -1 if the string is unterminated
+     */
+    private static int closingQuote(String json, int from) {
+        for (int i = from; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '"') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
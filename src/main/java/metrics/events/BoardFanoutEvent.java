@@ -0,0 +1,30 @@
+package main.java.metrics.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A broadcast of one message to the clients on a board
+ */
+@Name("thinklink.BoardFanout")
+@Label("Board Fan-out")
+@Category({ "ThinkLink", "Server" })
+@Description("ThinkLinkServer writing one message to every recipient on a board")
+public class BoardFanoutEvent extends Event {
+    @Label("Board Id")
+    public String boardId;
+
+    @Label("Message Type")
+    public String messageType;
+
+    @Label("Recipients")
+    public int recipients;
+
+    @Label("Payload Size")
+    @DataAmount(DataAmount.BYTES)
+    public long payloadBytes;
+}
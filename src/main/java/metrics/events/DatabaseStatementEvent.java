@@ -0,0 +1,30 @@
+package main.java.metrics.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One JDBC statement execution issued by a DAO. For queries the duration
+ * covers execution plus fetching rows until the result set is exhausted or closed.
+ */
+@Name("thinklink.DatabaseStatement")
+@Label("Database Statement")
+@Category({ "ThinkLink", "Persistence" })
+@Description("A PreparedStatement executed against PostgreSQL by the database package")
+public class DatabaseStatementEvent extends Event {
+    @Label("SQL")
+    public String sql;
+
+    @Label("Statement Kind")
+    public String kind;
+
+    @Label("Row Count")
+    @Description("Rows returned by a query or affected by an update/batch")
+    public long rowCount;
+
+    @Label("Batch Size")
+    public int batchSize;
+}
@@ -0,0 +1,31 @@
+package main.java.metrics.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One client message handled by a ClientHandler, from parse to the end of
+ * state apply and broadcast
+ */
+@Name("thinklink.MessageHandled")
+@Label("Client Message Handled")
+@Category({ "ThinkLink", "Server" })
+@Description("A message read from a client socket and fully processed by its ClientHandler")
+public class MessageHandledEvent extends Event {
+    @Label("Message Type")
+    public String messageType;
+
+    @Label("Board Id")
+    public String boardId;
+
+    @Label("User")
+    public String userEmail;
+
+    @Label("Payload Size")
+    @DataAmount(DataAmount.BYTES)
+    public long payloadBytes;
+}
@@ -0,0 +1,27 @@
+package main.java.metrics.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A load or save of the shared board file by SharedState
+ */
+@Name("thinklink.SharedState")
+@Label("Shared Board Persistence")
+@Category({ "ThinkLink", "Persistence" })
+@Description("SharedState reading or writing the shared board JSON file")
+public class SharedStateEvent extends Event {
+    @Label("Operation")
+    public String operation;
+
+    @Label("Box Count")
+    public int boxCount;
+
+    @Label("Payload Size")
+    @DataAmount(DataAmount.BYTES)
+    public long payloadBytes;
+}
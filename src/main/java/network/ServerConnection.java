@@ -5,6 +5,7 @@ import java.net.*;
 import org.json.*;
 import java.util.concurrent.*;
 import javax.swing.SwingUtilities;
+import main.java.metrics.OperationTrace;
 
 public class ServerConnection {
     private static final String SERVER_ADDRESS = "localhost";
@@ -16,18 +17,34 @@ public class ServerConnection {
     private boolean connected = false;
     private ExecutorService executor = Executors.newSingleThreadExecutor();
     private MessageHandler messageHandler;
+    // Where incoming messages are handed to the MessageHandler (the EDT by default)
+    private final Executor dispatcher;
 
     public interface MessageHandler {
         void handleMessage(JSONObject message);
     }
 
     public ServerConnection(MessageHandler handler) {
+        this(handler, SwingUtilities::invokeLater);
+    }
+
+    /**
+     * Creates a connection that delivers messages through the given executor,
+     * e.g. Runnable::run to handle them directly on the listener thread when
+     * running headless
+     */
+    public ServerConnection(MessageHandler handler, Executor dispatcher) {
         this.messageHandler = handler;
+        this.dispatcher = dispatcher;
     }
 
     public boolean connect(String userEmail, String role) {
+        return connect(SERVER_ADDRESS, SERVER_PORT, userEmail, role);
+    }
+
+    public boolean connect(String serverAddress, int serverPort, String userEmail, String role) {
         try {
-            socket = new Socket(SERVER_ADDRESS, SERVER_PORT);
+            socket = new Socket(serverAddress, serverPort);
             out = new PrintWriter(socket.getOutputStream(), true);
             in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
             connected = true;
@@ -75,10 +92,12 @@ public class ServerConnection {
             String message;
             while (connected && (message = in.readLine()) != null) {
                 final String finalMessage = message;
-                // Use SwingUtilities to handle UI updates on EDT
-                SwingUtilities.invokeLater(() -> {
+                final long receivedMicros = OperationTrace.nowMicros();
+                // Dispatch on the EDT (or the configured executor) for UI updates
+                dispatcher.execute(() -> {
                     try {
                         JSONObject json = new JSONObject(finalMessage);
+                        OperationTrace.markClientReceived(json, receivedMicros);
                         if (messageHandler != null) {
                             messageHandler.handleMessage(json);
                         }
@@ -0,0 +1,7 @@
+package main.java.notes;
+
+/**
+ * What the note list needs to show a note without loading its content
+ */
+public record NoteHeader(String title, long updatedAtMillis, long size) {
+}
@@ -26,6 +26,8 @@ public class NotePanel extends JPanel {
 
     // Data
     private Map<String, Note> notes = new HashMap<>();
+    // Listed notes from the last load, for the list tooltips
+    private Map<String, NoteHeader> headers = new HashMap<>();
     private String currentNoteTitle = null;
     private DatabaseSaveAndLoad saveAndLoad;
 
@@ -137,31 +139,28 @@ public class NotePanel extends JPanel {
             // Add icon to indicate it's a note
             label.setIcon(UIManager.getIcon("FileView.fileIcon"));
 
+            NoteHeader header = headers.get(value);
+            label.setToolTipText(header == null ? null
+                    : "Updated " + new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm")
+                            .format(new Date(header.updatedAtMillis())) + " - " + header.size() + " bytes");
+
             return label;
         }
     }
 
     /**
-     * Loads all notes for the current user
+     * Loads the note list for the current user in one call; a note's content
+     * is only fetched when it is first selected
      */
     private void loadNotes() {
         listModel.clear();
         notes.clear();
+        headers.clear();
 
-        // Get all note titles for this user
-        List<String> noteTitles = saveAndLoad.getNoteList(username);
-
-        // Load each note
-        for (String title : noteTitles) {
-            Map<String, String> noteData = saveAndLoad.loadNote(title, username);
-            if (noteData != null) {
-                String noteTitle = noteData.get("title");
-                String content = noteData.get("content");
-
-                Note note = new Note(noteTitle, content, username);
-                notes.put(noteTitle, note);
-                listModel.addElement(noteTitle);
-            }
+        for (NoteHeader header : saveAndLoad.getNoteHeaders(username)) {
+            notes.put(header.title(), new Note(header.title(), null, username));
+            headers.put(header.title(), header);
+            listModel.addElement(header.title());
         }
 
         // Select the first note if available
@@ -390,6 +389,7 @@ public class NotePanel extends JPanel {
                     String newTitle = listModel.get(newIndex);
                     Note newNote = notes.get(newTitle);
                     if (newNote != null) {
+                        ensureContentLoaded(newNote);
                         titleField.setText(newNote.getTitle());
                         contentArea.setText(newNote.getContent());
                         currentNoteTitle = newTitle;
@@ -422,6 +422,7 @@ public class NotePanel extends JPanel {
 
         Note note = notes.get(title);
         if (note != null) {
+            ensureContentLoaded(note);
             // Update editor
             titleField.setText(note.getTitle());
             contentArea.setText(note.getContent());
@@ -429,6 +430,17 @@ public class NotePanel extends JPanel {
         }
     }
 
+    /**
+     * Fetches the content of a note listed from its header
+     */
+    private void ensureContentLoaded(Note note) {
+        if (note.getContent() != null) {
+            return;
+        }
+        Map<String, String> noteData = saveAndLoad.loadNote(note.getTitle(), username);
+        note.setContent(noteData != null && noteData.get("content") != null ? noteData.get("content") : "");
+    }
+
     /**
      * Checks if there are unsaved changes to the current note
      */
@@ -438,7 +450,7 @@ public class NotePanel extends JPanel {
         }
 
         Note note = notes.get(currentNoteTitle);
-        if (note == null) {
+        if (note == null || note.getContent() == null) {
             return false;
         }
 
@@ -446,6 +458,16 @@ public class NotePanel extends JPanel {
                 !contentArea.getText().equals(note.getContent());
     }
 
+    /**
+     * Selects a note by title, e.g. when opened from search results
+     */
+    public void showNote(String title) {
+        if (!listModel.contains(title)) {
+            loadNotes();
+        }
+        noteList.setSelectedValue(title, true);
+    }
+
     /**
      * Updates the username when user changes
      */
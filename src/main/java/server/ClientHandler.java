@@ -2,6 +2,7 @@ package main.java.server;
 
 import java.io.*;
 import java.net.*;
+import java.nio.charset.StandardCharsets;
 import org.json.*;
 import java.util.Map;
 import java.nio.file.Files;
@@ -10,6 +11,9 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import main.java.utils.SharedState;
+import main.java.metrics.ServerMetrics;
+import main.java.metrics.OperationTrace;
+import main.java.metrics.events.MessageHandledEvent;
 import java.util.List;
 import java.util.Set;
 
@@ -20,6 +24,8 @@ public class ClientHandler implements Runnable {
     private String userEmail;
     private ThinkLinkServer server;
     private String boardId;
+    // Messages currently being written to this client's socket
+    private final AtomicInteger pendingOutbound = new AtomicInteger();
 
     // Reference SharedState's path logic if possible, or redefine consistently.
     // For simplicity here, we'll assume SharedState is accessible or redefine path
@@ -100,9 +106,17 @@ public class ClientHandler implements Runnable {
                         + (boardId != null ? boardId : "N/A") + "): "
                         + inputLine.substring(0, Math.min(inputLine.length(), 150))); // Log truncated message
                 JSONObject json = null;
+                MessageHandledEvent handledEvent = new MessageHandledEvent();
+                handledEvent.begin();
                 try {
+                    long receivedMicros = OperationTrace.nowMicros();
+                    long parseStart = System.nanoTime();
                     json = new JSONObject(inputLine);
                     String type = json.optString("type", "unknown");
+                    ServerMetrics.HANDLER_LATENCY.observeSince(ServerMetrics.STAGE_PARSE, parseStart);
+                    ServerMetrics.MESSAGES_IN.inc(ServerMetrics.typeLabel(type));
+                    OperationTrace.markServerReceived(json, receivedMicros);
+                    handledEvent.messageType = type;
 
                     switch (type) {
                         case "login":
@@ -132,7 +146,10 @@ public class ClientHandler implements Runnable {
                                     "): Received unhandled/generic message type '" + type
                                     + "'. Relaying if on a board.");
                             if (this.boardId != null) {
+                                long broadcastStart = System.nanoTime();
                                 broadcastToOthersOnBoard(inputLine);
+                                ServerMetrics.HANDLER_LATENCY.observeSince(ServerMetrics.STAGE_BROADCAST,
+                                        broadcastStart);
                             } else {
                                 System.out.println("ClientHandler: Message type '" + type
                                         + "' received but client not on a board. Message not relayed.");
@@ -143,6 +160,14 @@ public class ClientHandler implements Runnable {
                     System.err.println("ClientHandler (" + (userEmail != null ? userEmail : "UNKNOWN_USER") +
                             "): JSONException parsing message: "
                             + inputLine.substring(0, Math.min(inputLine.length(), 150)) + " - " + e.getMessage());
+                } finally {
+                    handledEvent.end();
+                    if (handledEvent.shouldCommit()) {
+                        handledEvent.boardId = this.boardId;
+                        handledEvent.userEmail = this.userEmail;
+                        handledEvent.payloadBytes = inputLine.getBytes(StandardCharsets.UTF_8).length;
+                        handledEvent.commit();
+                    }
                 }
             }
         } catch (SocketException se) {
@@ -264,8 +289,11 @@ public class ClientHandler implements Runnable {
         addBoxMessageForBroadcast.put("x", x);
         addBoxMessageForBroadcast.put("y", y);
         addBoxMessageForBroadcast.put("connections", new JSONArray());
+        OperationTrace.markServerSent(addBoxMessageForBroadcast, json);
 
+        long broadcastStart = System.nanoTime();
         this.server.broadcastToBoard(addBoxMessageForBroadcast.toString(), this.boardId);
+        ServerMetrics.HANDLER_LATENCY.observeSince(ServerMetrics.STAGE_BROADCAST, broadcastStart);
         System.out.println("ClientHandler (" + this.userEmail + "): Server broadcasting add_box for board "
                 + this.boardId + ", new ID " + newBoxId);
 
@@ -277,7 +305,10 @@ public class ClientHandler implements Runnable {
         boxDataForState.put("y", y);
         boxDataForState.put("connections", new JSONArray());
 
+        long applyStart = System.nanoTime();
         SharedState.updateServerBoardState(this.boardId, boxDataForState);
+        ServerMetrics.HANDLER_LATENCY.observeSince(ServerMetrics.STAGE_APPLY, applyStart);
+        OperationTrace.recordServerApply(json, applyStart);
         System.out.println("ClientHandler (" + this.userEmail + "): New box ID " + newBoxId
                 + " data saved to SharedState for board " + this.boardId);
     }
@@ -309,7 +340,10 @@ public class ClientHandler implements Runnable {
 
         System.out.println("ClientHandler (" + this.userEmail + "): Received update_box for board " + messageBoardId
                 + ". Relaying.");
+        OperationTrace.markServerSent(jsonMessageFromClient, jsonMessageFromClient);
+        long broadcastStart = System.nanoTime();
         broadcastToOthersOnBoard(jsonMessageFromClient.toString());
+        ServerMetrics.HANDLER_LATENCY.observeSince(ServerMetrics.STAGE_BROADCAST, broadcastStart);
 
         JSONObject boxDataToUpdate = new JSONObject();
         boxDataToUpdate.put("id", jsonMessageFromClient.getInt("boxId"));
@@ -320,7 +354,10 @@ public class ClientHandler implements Runnable {
         JSONArray connections = jsonMessageFromClient.optJSONArray("connections");
         boxDataToUpdate.put("connections", connections != null ? connections : new JSONArray());
 
+        long applyStart = System.nanoTime();
         SharedState.updateServerBoardState(this.boardId, boxDataToUpdate);
+        ServerMetrics.HANDLER_LATENCY.observeSince(ServerMetrics.STAGE_APPLY, applyStart);
+        OperationTrace.recordServerApply(jsonMessageFromClient, applyStart);
         System.out.println("ClientHandler (" + this.userEmail + "): Updated box data (ID: "
                 + jsonMessageFromClient.optInt("boxId") + ") saved to SharedState for board " + this.boardId);
     }
@@ -332,16 +369,14 @@ public class ClientHandler implements Runnable {
         System.out.println("ClientHandler (" + userEmail + "): Processing delete_box request for box " + boxId);
 
         // Remove from server state
+        long applyStart = System.nanoTime();
         SharedState.removeBoxFromServerState(messageBoardId, boxId);
+        ServerMetrics.HANDLER_LATENCY.observeSince(ServerMetrics.STAGE_APPLY, applyStart);
+        OperationTrace.recordServerApply(message, applyStart);
 
         // Broadcast to ALL clients on this board (including sender)
-        Set<String> clientEmailsOnBoard = ThinkLinkServer.getClientsOnBoard(messageBoardId);
-        for (String clientEmail : clientEmailsOnBoard) {
-            ClientHandler client = ThinkLinkServer.getClientHandler(clientEmail);
-            if (client != null) {
-                client.sendMessage(message.toString());
-            }
-        }
+        OperationTrace.markServerSent(message, message);
+        Set<String> clientEmailsOnBoard = sendToAllOnBoard(messageBoardId, message.toString());
 
         System.out.println("ClientHandler (" + userEmail + "): Deleted box " + boxId + " and broadcast to "
                 + clientEmailsOnBoard.size() + " clients");
@@ -357,10 +392,16 @@ public class ClientHandler implements Runnable {
                     + ". Broadcasting to all.");
 
             // Use broadcastToBoard which sends to ALL clients including sender
+            OperationTrace.markServerSent(jsonMessage, jsonMessage);
+            long broadcastStart = System.nanoTime();
             this.server.broadcastToBoard(jsonMessage.toString(), boardId);
+            ServerMetrics.HANDLER_LATENCY.observeSince(ServerMetrics.STAGE_BROADCAST, broadcastStart);
 
             // Update server state
+            long applyStart = System.nanoTime();
             SharedState.addConnectionToServerState(boardId, sourceBoxId, targetBoxId);
+            ServerMetrics.HANDLER_LATENCY.observeSince(ServerMetrics.STAGE_APPLY, applyStart);
+            OperationTrace.recordServerApply(jsonMessage, applyStart);
             System.out.println("ClientHandler (" + userEmail + "): Added connection from " + sourceBoxId + " to "
                     + targetBoxId + " in SharedState for board " + boardId);
 
@@ -379,21 +420,27 @@ public class ClientHandler implements Runnable {
                 + " -> " + targetBoxId);
 
         // Remove connection from server state
+        long applyStart = System.nanoTime();
         SharedState.removeConnectionFromServerState(messageBoardId, sourceBoxId, targetBoxId);
+        ServerMetrics.HANDLER_LATENCY.observeSince(ServerMetrics.STAGE_APPLY, applyStart);
+        OperationTrace.recordServerApply(message, applyStart);
 
         // Broadcast to ALL clients on this board (including sender)
-        Set<String> clientEmailsOnBoard = ThinkLinkServer.getClientsOnBoard(messageBoardId);
-        for (String clientEmail : clientEmailsOnBoard) {
-            ClientHandler client = ThinkLinkServer.getClientHandler(clientEmail);
-            if (client != null) {
-                client.sendMessage(message.toString());
-            }
-        }
+        OperationTrace.markServerSent(message, message);
+        Set<String> clientEmailsOnBoard = sendToAllOnBoard(messageBoardId, message.toString());
 
         System.out.println("ClientHandler (" + userEmail + "): Deleted connection " + sourceBoxId + " -> " + targetBoxId
                 + " and broadcast to " + clientEmailsOnBoard.size() + " clients");
     }
 
+    // Sends a message to every client registered on the board, including the sender
+    private Set<String> sendToAllOnBoard(String targetBoardId, String message) {
+        long broadcastStart = System.nanoTime();
+        Set<String> clientEmailsOnBoard = ThinkLinkServer.broadcastToBoardMembers(targetBoardId, message);
+        ServerMetrics.HANDLER_LATENCY.observeSince(ServerMetrics.STAGE_BROADCAST, broadcastStart);
+        return clientEmailsOnBoard;
+    }
+
     // Method to broadcast messages to other clients on the same board
     private void broadcastToOthersOnBoard(String message) {
         if (this.userEmail == null || this.boardId == null) {
@@ -406,7 +453,13 @@ public class ClientHandler implements Runnable {
 
     public void sendMessage(String message) {
         if (out != null && clientSocket != null && !clientSocket.isClosed() && !out.checkError()) {
-            out.println(message);
+            pendingOutbound.incrementAndGet();
+            try {
+                out.println(message);
+            } finally {
+                pendingOutbound.decrementAndGet();
+            }
+            ServerMetrics.MESSAGES_OUT.inc(ServerMetrics.typeLabel(ServerMetrics.messageType(message)));
         } else {
             System.err.println("ClientHandler (" + (userEmail != null ? userEmail : "NO_USER_EMAIL")
                     + "): PrintWriter is null, socket closed, or has error. Cannot send message: "
@@ -467,4 +520,9 @@ public class ClientHandler implements Runnable {
     public String getBoardId() {
         return boardId; // Might be null
     }
+
+    // Number of messages blocked writing to this client's socket
+    public int getPendingOutbound() {
+        return pendingOutbound.get();
+    }
 }
\ No newline at end of file
@@ -2,12 +2,17 @@ package main.java.server;
 
 import java.io.*;
 import java.net.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.json.JSONArray; // Required for parsing JSON
 import org.json.JSONObject; // Required for parsing JSON
 import main.java.utils.SharedState; // To load the board and find max ID
+import main.java.metrics.MetricsHttpServer;
+import main.java.metrics.MetricsRegistry;
+import main.java.metrics.ServerMetrics;
+import main.java.metrics.events.BoardFanoutEvent;
 
 // Attempt to trigger ClientHandler static initialization early
 import main.java.server.ClientHandler; // Make sure it's imported
@@ -60,6 +65,15 @@ public class ThinkLinkServer {
         System.out.println(
                 "ThinkLinkServer.main(): Initialized globalBoxIdCounter to start at: " + globalBoxIdCounter.get());
 
+        registerGauges();
+        int metricsPort = Integer.getInteger("thinklink.metrics.port", MetricsHttpServer.DEFAULT_PORT);
+        try {
+            new MetricsHttpServer(MetricsRegistry.getInstance(), metricsPort).start();
+        } catch (IOException e) {
+            System.err.println("ThinkLinkServer.main(): Could not start metrics endpoint on port " + metricsPort
+                    + ": " + e.getMessage());
+        }
+
         ThinkLinkServer server = new ThinkLinkServer();
         try (ServerSocket serverSocket = new ServerSocket(PORT)) {
             System.out.println("ThinkLink Server started on port " + PORT);
@@ -80,6 +94,22 @@ public class ThinkLinkServer {
         }
     }
 
+    private static void registerGauges() {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.gauge("thinklink_connected_clients", "Logged-in clients connected to the server",
+                () -> clients.size());
+        registry.gauge("thinklink_active_boards", "Boards with at least one joined user",
+                () -> boardUsers.size());
+        registry.gauge("thinklink_outbound_queue_depth", "Messages waiting to be written, per client", "client",
+                () -> {
+                    Map<String, Integer> depths = new TreeMap<>();
+                    for (Map.Entry<String, ClientHandler> entry : clients.entrySet()) {
+                        depths.put(entry.getKey(), entry.getValue().getPendingOutbound());
+                    }
+                    return depths;
+                });
+    }
+
     private void acceptClient(Socket clientSocket) {
         System.out.println("ThinkLinkServer.acceptClient(): Attempting to create new ClientHandler instance...");
         try {
@@ -114,6 +144,9 @@ public class ThinkLinkServer {
         System.out.println("Broadcasting to board " + boardId + ": " + message);
 
         // Broadcast to ALL connected clients except sender
+        BoardFanoutEvent fanoutEvent = new BoardFanoutEvent();
+        fanoutEvent.begin();
+        int delivered = 0;
         for (Map.Entry<String, ClientHandler> entry : clients.entrySet()) {
             // Check if client is on the target board and not the excluded user.
             // ClientHandler's boardId might be null initially, so handle that.
@@ -124,12 +157,31 @@ public class ThinkLinkServer {
                 try {
                     System.out.println("Sending to " + entry.getKey() + " on board " + boardId);
                     handler.sendMessage(message);
+                    delivered++;
                 } catch (Exception e) {
                     System.out.println("Error sending to " + entry.getKey() + ": " + e.getMessage());
                     e.printStackTrace(); // Good to see stack trace for errors here
                 }
             }
         }
+        recordFanout(fanoutEvent, boardId, message, delivered);
+    }
+
+    // Sends to every user registered on the board via join_board, including the sender
+    public static Set<String> broadcastToBoardMembers(String boardId, String message) {
+        BoardFanoutEvent fanoutEvent = new BoardFanoutEvent();
+        fanoutEvent.begin();
+        Set<String> clientEmailsOnBoard = getClientsOnBoard(boardId);
+        int delivered = 0;
+        for (String clientEmail : clientEmailsOnBoard) {
+            ClientHandler client = getClientHandler(clientEmail);
+            if (client != null) {
+                client.sendMessage(message);
+                delivered++;
+            }
+        }
+        recordFanout(fanoutEvent, boardId, message, delivered);
+        return clientEmailsOnBoard;
     }
 
     public static void addUserToBoard(String boardId, String userEmail) {
@@ -160,17 +212,20 @@ public class ThinkLinkServer {
             return;
         }
         String senderEmail = (sender != null) ? sender.getUserEmail() : "null_sender";
-        boolean messageSentToAnyone = false;
+        BoardFanoutEvent fanoutEvent = new BoardFanoutEvent();
+        fanoutEvent.begin();
+        int delivered = 0;
         for (ClientHandler client : clients.values()) {
             if (client != sender && client.getBoardId() != null && client.getBoardId().equals(boardId)) {
                 System.out
                         .println("Server broadcasting (to others on board " + boardId + ") from " + senderEmail + " to "
                                 + client.getUserEmail() + ": " + message);
                 client.sendMessage(message);
-                messageSentToAnyone = true;
+                delivered++;
             }
         }
-        if (!messageSentToAnyone) {
+        recordFanout(fanoutEvent, boardId, message, delivered);
+        if (delivered == 0) {
             System.out.println("broadcastMessage: No other clients found on board " + boardId
                     + " to send message to (sender: " + senderEmail + ")");
         }
@@ -182,7 +237,9 @@ public class ThinkLinkServer {
             return;
         }
         System.out.println("Server broadcasting (to all on board " + boardId + "): " + message);
-        boolean messageSentToAnyone = false;
+        BoardFanoutEvent fanoutEvent = new BoardFanoutEvent();
+        fanoutEvent.begin();
+        int delivered = 0;
         for (ClientHandler client : clients.values()) {
             // Ensure client has joined a board and it's the target board
             String clientBoardId = client.getBoardId(); // Assuming getBoardId() exists
@@ -190,17 +247,31 @@ public class ThinkLinkServer {
                 System.out.println(
                         "broadcastToBoard: Sending to client " + client.getUserEmail() + " on board " + boardId);
                 client.sendMessage(message);
-                messageSentToAnyone = true;
+                delivered++;
             } else {
                 System.out.println("broadcastToBoard: Skipping client " + client.getUserEmail() + " (board: "
                         + clientBoardId + ")");
             }
         }
-        if (!messageSentToAnyone) {
+        recordFanout(fanoutEvent, boardId, message, delivered);
+        if (delivered == 0) {
             System.out.println("broadcastToBoard: No clients found on board " + boardId + " to send message to.");
         }
     }
 
+    private static void recordFanout(BoardFanoutEvent fanoutEvent, String boardId, String message, int delivered) {
+        ServerMetrics.BROADCASTS.inc(boardId);
+        ServerMetrics.FANOUT_DELIVERIES.add(boardId, delivered);
+        fanoutEvent.end();
+        if (fanoutEvent.shouldCommit()) {
+            fanoutEvent.boardId = boardId;
+            fanoutEvent.messageType = ServerMetrics.messageType(message);
+            fanoutEvent.recipients = delivered;
+            fanoutEvent.payloadBytes = message.getBytes(StandardCharsets.UTF_8).length;
+            fanoutEvent.commit();
+        }
+    }
+
     public synchronized void addClient(ClientHandler clientHandler) {
         String email = clientHandler.getUserEmail();
         if (email != null) {
@@ -1,20 +1,30 @@
 package main.java.utils;
 
+import main.java.database.BoxWrite;
+import main.java.database.BoxWriteQueue;
+import main.java.database.DatabaseCircuitBreaker;
 import main.java.database.DatabaseService;
 import main.java.board.BoxList;
 import main.java.board.Box;
+import main.java.notes.NoteHeader;
 import org.json.JSONObject;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * Enhanced SaveAndLoad that integrates with PostgreSQL database
- * while maintaining compatibility with existing file-based operations
+ * while maintaining compatibility with existing file-based operations.
+ * While the database circuit is open, calls go straight to the file backend
+ * and database writes are queued to be replayed when it recovers.
  */
 public class DatabaseSaveAndLoad extends SaveAndLoad {
     private final DatabaseService databaseService;
+    private final DatabaseCircuitBreaker breaker = DatabaseCircuitBreaker.getInstance();
     private boolean useDatabasePrimary = true;
 
     public DatabaseSaveAndLoad() {
@@ -28,7 +38,21 @@ public class DatabaseSaveAndLoad extends SaveAndLoad {
         } catch (SQLException e) {
             System.err.println(
                     "Failed to connect to PostgreSQL database, falling back to file-only mode: " + e.getMessage());
-            useDatabasePrimary = false;
+            // The health probe switches back once the database answers
+            breaker.trip(e.getMessage());
+        }
+    }
+
+    // Configured for the database and not short-circuited
+    private boolean databaseAvailable() {
+        return useDatabasePrimary && !breaker.isOpen();
+    }
+
+    // Queues a database write for replay if the circuit is open, meaning the
+    // caller has fallen back to the file backend for now
+    private void replayWhenAvailable(String key, Supplier<Boolean> write) {
+        if (useDatabasePrimary && breaker.isOpen()) {
+            breaker.queueReplay(key, write);
         }
     }
 
@@ -37,12 +61,11 @@ public class DatabaseSaveAndLoad extends SaveAndLoad {
      */
     @Override
     public void saveSharedBoard(BoxList boxList) {
-        if (useDatabasePrimary) {
+        String boardId = "shared-global-board";
+        String boardName = "Global Shared Board";
+        String creatorEmail = "system@thinklink.com";
+        if (databaseAvailable()) {
             try {
-                String boardId = "shared-global-board";
-                String boardName = "Global Shared Board";
-                String creatorEmail = "system@thinklink.com";
-
                 boolean dbSaved = databaseService.saveBoardToDatabase(boardId, boardName, creatorEmail, boxList);
                 if (dbSaved) {
                     System.out.println("Shared board saved to PostgreSQL database successfully");
@@ -57,6 +80,13 @@ public class DatabaseSaveAndLoad extends SaveAndLoad {
         } else {
             super.saveSharedBoard(boxList);
         }
+        if (useDatabasePrimary && breaker.isOpen()) {
+            // The replay runs on the health thread, so it gets a copy of the
+            // unsaved boxes rather than the live list
+            List<BoxWrite> writes = BoxWrite.dirtyOf(boxList);
+            breaker.queueReplay("board:" + boardId,
+                    () -> databaseService.saveBoxWrites(boardId, boardName, creatorEmail, writes));
+        }
     }
 
     /**
@@ -64,7 +94,7 @@ public class DatabaseSaveAndLoad extends SaveAndLoad {
      */
     @Override
     public JSONObject loadSharedBoard() {
-        if (useDatabasePrimary) {
+        if (databaseAvailable()) {
             try {
                 String boardId = "shared-global-board";
                 JSONObject boardData = databaseService.boardToJSON(boardId);
@@ -88,19 +118,33 @@ public class DatabaseSaveAndLoad extends SaveAndLoad {
      * Save individual box update to database
      */
     public boolean saveBoxUpdate(Box box, String boardId) {
-        if (useDatabasePrimary) {
+        if (databaseAvailable()) {
             return databaseService.saveBoxUpdate(box, boardId);
         }
+        if (useDatabasePrimary) {
+            // The write queue holds it until the circuit closes
+            BoxWriteQueue.getInstance().enqueue(box, boardId);
+        }
         return false;
     }
 
+    /**
+     * Queue a box update for the background writer; returns immediately
+     */
+    public void queueBoxUpdate(Box box, String boardId) {
+        if (useDatabasePrimary) {
+            BoxWriteQueue.getInstance().enqueue(box, boardId);
+        }
+    }
+
     /**
      * Delete box from database
      */
     public boolean deleteBoxFromDatabase(int boxId, String boardId) {
-        if (useDatabasePrimary) {
+        if (databaseAvailable()) {
             return databaseService.deleteBoxFromDatabase(boxId, boardId);
         }
+        replayWhenAvailable("box-delete:" + boxId, () -> databaseService.deleteBoxFromDatabase(boxId, boardId));
         return false;
     }
 
@@ -109,7 +153,7 @@ public class DatabaseSaveAndLoad extends SaveAndLoad {
      */
     @Override
     public boolean saveNote(String title, String content, String username) {
-        if (useDatabasePrimary) {
+        if (databaseAvailable()) {
             boolean dbSaved = databaseService.getNoteDAO().saveNote(username, title, content);
             if (dbSaved) {
                 SaveLog.getInstance().addLog("Saved note to PostgreSQL database: " + title + " for user " + username);
@@ -117,6 +161,8 @@ public class DatabaseSaveAndLoad extends SaveAndLoad {
             }
         }
         // Fallback to file-based save
+        replayWhenAvailable("note:" + username + ":" + title,
+                () -> databaseService.getNoteDAO().saveNote(username, title, content));
         return super.saveNote(title, content, username);
     }
 
@@ -125,7 +171,7 @@ public class DatabaseSaveAndLoad extends SaveAndLoad {
      */
     @Override
     public Map<String, String> loadNote(String title, String username) {
-        if (useDatabasePrimary) {
+        if (databaseAvailable()) {
             Map<String, String> note = databaseService.getNoteDAO().loadNote(username, title);
             if (note != null) {
                 SaveLog.getInstance()
@@ -142,7 +188,7 @@ public class DatabaseSaveAndLoad extends SaveAndLoad {
      */
     @Override
     public List<String> getNoteList(String username) {
-        if (useDatabasePrimary) {
+        if (databaseAvailable()) {
             List<String> notes = databaseService.getNoteDAO().getNoteList(username);
             if (!notes.isEmpty()) {
                 return notes;
@@ -152,12 +198,27 @@ public class DatabaseSaveAndLoad extends SaveAndLoad {
         return super.getNoteList(username);
     }
 
+    /**
+     * Note headers with database, one query for the whole list
+     */
+    @Override
+    public List<NoteHeader> getNoteHeaders(String username) {
+        if (databaseAvailable()) {
+            List<NoteHeader> headers = databaseService.getNoteDAO().getNoteHeaders(username);
+            if (!headers.isEmpty()) {
+                return headers;
+            }
+        }
+        // Fallback to file-based list
+        return super.getNoteHeaders(username);
+    }
+
     /**
      * Enhanced checklist saving with database
      */
     @Override
     public boolean saveChecklist(String title, List<Map<String, Object>> items, String username) {
-        if (useDatabasePrimary) {
+        if (databaseAvailable()) {
             boolean dbSaved = databaseService.getChecklistDAO().saveChecklist(username, title, items);
             if (dbSaved) {
                 SaveLog.getInstance()
@@ -165,7 +226,14 @@ public class DatabaseSaveAndLoad extends SaveAndLoad {
                 return true;
             }
         }
-        // Fallback to file-based save
+        // Fallback to file-based save; the replay gets a copy of the items
+        // as they are now, not the caller's list
+        List<Map<String, Object>> snapshot = new ArrayList<>(items.size());
+        for (Map<String, Object> item : items) {
+            snapshot.add(new HashMap<>(item));
+        }
+        replayWhenAvailable("checklist:" + username + ":" + title,
+                () -> databaseService.getChecklistDAO().saveChecklist(username, title, snapshot));
         return super.saveChecklist(title, items, username);
     }
 
@@ -174,7 +242,7 @@ public class DatabaseSaveAndLoad extends SaveAndLoad {
      */
     @Override
     public Map<String, Object> loadChecklist(String title, String username) {
-        if (useDatabasePrimary) {
+        if (databaseAvailable()) {
             Map<String, Object> checklist = databaseService.getChecklistDAO().loadChecklist(username, title);
             if (checklist != null) {
                 SaveLog.getInstance()
@@ -201,9 +269,18 @@ public class DatabaseSaveAndLoad extends SaveAndLoad {
     }
 
     /**
-     * Check if database is available and primary
+     * Check if the database is configured as primary storage, whether or not
+     * it is reachable right now
      */
     public boolean isDatabasePrimary() {
         return useDatabasePrimary;
     }
+
+    /**
+     * Check if the database is primary and reachable; false while the circuit
+     * is open or queued writes are replaying
+     */
+    public boolean isDatabaseAvailable() {
+        return databaseAvailable();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,118 @@
+package main.java.utils;
+
+import javax.swing.JScrollBar;
+import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Fills a scrollable list one keyset page at a time. The next page is fetched
+ * on a background thread when the user scrolls near the bottom (or while the
+ * list is too short to scroll), and handed to onPage on the EDT.
+ *
+ * @param <T> row type; the last row of a page is the cursor for the next one
+ */
+public class LazyPageLoader<T> {
+    private final JScrollPane scrollPane;
+    private final int pageSize;
+    // (last row of the previous page or null, limit) -> rows; runs off the EDT
+    private final BiFunction<T, Integer, List<T>> fetchPage;
+    private final Consumer<List<T>> onPage;
+
+    // All state below is only touched on the EDT
+    private T last;
+    private boolean loading;
+    private boolean exhausted;
+    // Bumped by reset() so pages still in flight for the old list are dropped
+    private int generation;
+
+    public LazyPageLoader(JScrollPane scrollPane, int pageSize, BiFunction<T, Integer, List<T>> fetchPage,
+            Consumer<List<T>> onPage) {
+        this.scrollPane = scrollPane;
+        this.pageSize = pageSize;
+        this.fetchPage = fetchPage;
+        this.onPage = onPage;
+        scrollPane.getVerticalScrollBar().addAdjustmentListener(e -> {
+            if (!e.getValueIsAdjusting() && nearBottom()) {
+                loadMore();
+            }
+        });
+    }
+
+    /**
+     * Forgets what was loaded and fetches the first page again. The caller
+     * clears its list model first.
+     */
+    public void reset() {
+        generation++;
+        last = null;
+        loading = false;
+        exhausted = false;
+        loadMore();
+    }
+
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    /**
+     * Fetches the next page unless one is already in flight or none is left
+     */
+    public void loadMore() {
+        if (loading || exhausted) {
+            return;
+        }
+        loading = true;
+        int requestGeneration = generation;
+        T after = last;
+        new SwingWorker<List<T>, Void>() {
+            @Override
+            protected List<T> doInBackground() {
+                return fetchPage.apply(after, pageSize);
+            }
+
+            @Override
+            protected void done() {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                loading = false;
+                List<T> rows;
+                try {
+                    rows = get();
+                } catch (Exception e) {
+                    System.err.println("LazyPageLoader: Error loading page: " + e.getMessage());
+                    exhausted = true;
+                    return;
+                }
+                if (rows.size() < pageSize) {
+                    exhausted = true;
+                }
+                if (!rows.isEmpty()) {
+                    last = rows.get(rows.size() - 1);
+                }
+                // Empty pages too, so callers can report an empty or finished list
+                onPage.accept(rows);
+                // Keep going until the viewport is full or the rows run out
+                SwingUtilities.invokeLater(() -> {
+                    if (nearBottom()) {
+                        loadMore();
+                    }
+                });
+            }
+        }.execute();
+    }
+
+    // Within half a screen of the end, or not scrollable at all yet. Hidden
+    // lists (e.g. a tab not selected) never ask for more than the first page.
+    private boolean nearBottom() {
+        if (!scrollPane.isShowing()) {
+            return false;
+        }
+        JScrollBar bar = scrollPane.getVerticalScrollBar();
+        return bar.getValue() + bar.getVisibleAmount() + bar.getVisibleAmount() / 2 >= bar.getMaximum();
+    }
+}
@@ -17,6 +17,7 @@ import javax.swing.JOptionPane;
 
 import main.java.board.Box;
 import main.java.board.BoxList;
+import main.java.notes.NoteHeader;
 
 /**
  * Simplified SaveAndLoad class focused on shared board state
@@ -342,6 +343,43 @@ public class SaveAndLoad {
 		}
 	}
 
+	/**
+	 * Gets the headers of all notes for a user from one directory listing,
+	 * reading only the title line of each note file
+	 */
+	public List<NoteHeader> getNoteHeaders(String username) {
+		List<NoteHeader> headers = new ArrayList<>();
+
+		try {
+			Path dirPath = Paths.get(NOTES_DIR + "/" + sanitizeFileName(username));
+
+			if (Files.exists(dirPath)) {
+				try (DirectoryStream<Path> stream = Files.newDirectoryStream(dirPath, "*.note")) {
+					for (Path path : stream) {
+						String fileName = path.getFileName().toString();
+						java.nio.file.attribute.BasicFileAttributes attributes = Files.readAttributes(path,
+								java.nio.file.attribute.BasicFileAttributes.class);
+						// The file name is the sanitized title; the first line has the real one
+						String title = fileName.substring(0, fileName.length() - 5);
+						try (BufferedReader reader = new BufferedReader(new FileReader(path.toFile()))) {
+							String firstLine = reader.readLine();
+							if (firstLine != null && !firstLine.isEmpty()) {
+								title = firstLine;
+							}
+						}
+						headers.add(new NoteHeader(title, attributes.lastModifiedTime().toMillis(),
+								attributes.size()));
+					}
+				}
+			}
+		} catch (IOException e) {
+			System.err.println("Error listing notes: " + e.getMessage());
+		}
+
+		headers.sort(Comparator.comparingLong(NoteHeader::updatedAtMillis).reversed());
+		return headers;
+	}
+
 	/**
 	 * Gets a list of all note titles for a user
 	 */
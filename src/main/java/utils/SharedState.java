@@ -4,10 +4,13 @@ import java.io.*;
 import org.json.*;
 import main.java.board.*;
 import java.util.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.NoSuchFileException;
+import main.java.metrics.ServerMetrics;
+import main.java.metrics.events.SharedStateEvent;
 
 public class SharedState {
     private static final String APP_DATA_DIR_NAME = ".thinklink";
@@ -70,6 +73,11 @@ public class SharedState {
 
     // Save the shared board state
     public static synchronized void saveSharedBoard(BoxList boxList) {
+        long saveStart = System.nanoTime();
+        SharedStateEvent event = new SharedStateEvent();
+        event.operation = "save";
+        event.begin();
+        String serialized = null;
         try {
             JSONObject boardData = new JSONObject();
             boardData.put("lastUpdated", System.currentTimeMillis());
@@ -98,7 +106,9 @@ public class SharedState {
             boardData.put("boxes", boxesArray);
 
             try (BufferedWriter writer = Files.newBufferedWriter(SHARED_BOARD_PATH)) {
-                writer.write(boardData.toString(2));
+                serialized = boardData.toString(2);
+                writer.write(serialized);
+                event.boxCount = boxesArray.length();
                 System.out.println("Shared board saved successfully to: " + SHARED_BOARD_PATH.toString() + " with "
                         + boxesArray.length() + " boxes.");
             }
@@ -106,11 +116,49 @@ public class SharedState {
         } catch (Exception e) {
             System.err.println("Error saving shared board to " + SHARED_BOARD_PATH.toString() + ": " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            ServerMetrics.PERSISTENCE_LATENCY.observeSince("save", saveStart);
+            commitSaveEvent(event, serialized);
+        }
+    }
+
+    // Byte count only when the event is recorded, so disabled JFR doesn't
+    // cost a second copy of the board
+    private static void commitSaveEvent(SharedStateEvent event, String serialized) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.payloadBytes = serialized != null ? serialized.getBytes(StandardCharsets.UTF_8).length : 0;
+            event.commit();
         }
     }
 
     // Load the shared board state
     public static JSONObject loadSharedBoard() {
+        long loadStart = System.nanoTime();
+        SharedStateEvent event = new SharedStateEvent();
+        event.operation = "load";
+        event.begin();
+        JSONObject board = null;
+        try {
+            board = loadSharedBoardFromDisk();
+            return board;
+        } finally {
+            ServerMetrics.PERSISTENCE_LATENCY.observeSince("load", loadStart);
+            event.end();
+            if (event.shouldCommit()) {
+                JSONArray boxes = board != null ? board.optJSONArray("boxes") : null;
+                event.boxCount = boxes != null ? boxes.length() : 0;
+                try {
+                    event.payloadBytes = SHARED_BOARD_PATH != null ? Files.size(SHARED_BOARD_PATH) : 0;
+                } catch (IOException e) {
+                    event.payloadBytes = -1;
+                }
+                event.commit();
+            }
+        }
+    }
+
+    private static JSONObject loadSharedBoardFromDisk() {
         if (SHARED_BOARD_PATH == null) {
             System.err.println("SharedState.loadSharedBoard: CRITICAL - SHARED_BOARD_PATH is null. Cannot load.");
             JSONObject errorBoard = new JSONObject();
@@ -189,13 +237,20 @@ public class SharedState {
                     "SharedState.saveSharedBoardInternally: CRITICAL - SHARED_BOARD_PATH is null. Cannot save.");
             return;
         }
+        long saveStart = System.nanoTime();
+        SharedStateEvent event = new SharedStateEvent();
+        event.operation = "save";
+        event.begin();
+        String serialized = null;
         try (FileWriter file = new FileWriter(SHARED_BOARD_PATH.toFile())) {
-            file.write(boardState.toString(4));
+            serialized = boardState.toString(4);
+            file.write(serialized);
             file.flush();
             int boxCount = 0;
             if (boardState.has("boxes") && boardState.get("boxes") instanceof JSONArray) {
                 boxCount = boardState.getJSONArray("boxes").length();
             }
+            event.boxCount = boxCount;
             System.out
                     .println("SharedState.saveSharedBoardInternally (JSONObject): Successfully saved shared board to: "
                             + SHARED_BOARD_PATH + ". Boxes: " + boxCount);
@@ -208,6 +263,9 @@ public class SharedState {
                     "SharedState.saveSharedBoardInternally (JSONObject): Unexpected error while saving: "
                             + e.getMessage());
             e.printStackTrace();
+        } finally {
+            ServerMetrics.PERSISTENCE_LATENCY.observeSince("save", saveStart);
+            commitSaveEvent(event, serialized);
         }
     }
 